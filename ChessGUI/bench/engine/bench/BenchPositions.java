@@ -0,0 +1,49 @@
+package engine.bench;
+
+import engine.board.Board;
+
+/**
+ * The fixed positions the benchmarks run on, referred to by name from the
+ * benchmark parameters
+ *
+ */
+public final class BenchPositions {
+
+	private BenchPositions() {
+
+	}
+
+	/**
+	 * @param name	position name
+	 * 
+	 * @return	FEN of the position
+	 */
+	public static String fen(String name) {
+		switch (name) {
+		case "start":
+			return Board.START_FEN;
+		// middlegames
+		case "kiwipete":
+			return "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+		case "italian":
+			return "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+		// endgames
+		case "rookEnding":
+			return "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+		case "pawnEnding":
+			return "8/5pk1/6p1/3p3p/3P3P/6P1/5PK1/8 w - - 0 1";
+		default:
+			throw new IllegalArgumentException("Unknown position: " + name);
+		}
+	}
+
+	/**
+	 * @param name	position name
+	 * 
+	 * @return	a new board with the position
+	 */
+	public static Board board(String name) {
+		return new Board(fen(name));
+	}
+
+}
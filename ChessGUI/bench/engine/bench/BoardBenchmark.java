@@ -0,0 +1,116 @@
+package engine.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import engine.ai.MoveEvaluator;
+import engine.board.Board;
+import engine.move.Move;
+import engine.move.MoveList;
+import engine.piece.Alliance;
+
+/**
+ * Measures the board operations the search runs at every node: move
+ * generation, checkmate detection, making and undoing moves and the move
+ * evaluation
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	@Param({ "start", "kiwipete", "italian", "rookEnding", "pawnEnding" })
+	public String position;
+
+	private Board board;
+	private Alliance side;
+	private ArrayList<Move> moves;
+	private final MoveList packedMoves = new MoveList();
+	private final MoveList scratch = new MoveList();
+
+	@Setup
+	public void setup() {
+		board = BenchPositions.board(position);
+		side = board.getSideToMove();
+		moves = board.getAllPossibleMoves(side);
+		board.getAllPossibleMoves(side, packedMoves);
+	}
+
+	@Benchmark
+	public ArrayList<Move> getAllPossibleMoves() {
+		return board.getAllPossibleMoves(side);
+	}
+
+	@Benchmark
+	public int getAllPossibleMovesPacked() {
+		board.getAllPossibleMoves(side, scratch);
+		return scratch.size();
+	}
+
+	@Benchmark
+	public boolean isCheckMate() {
+		return board.isCheckMate(side);
+	}
+
+	/**
+	 * Executes and undoes every legal move of the position
+	 */
+	@Benchmark
+	public long executeUndo() {
+		long keys = 0;
+		for (Move move : moves) {
+			move.execute(board);
+			keys += board.getZobristKey();
+			move.undo(board);
+		}
+		return keys;
+	}
+
+	/**
+	 * Makes and unmakes every legal move of the position as a packed move
+	 */
+	@Benchmark
+	public long makeUnmakePacked() {
+		long keys = 0;
+		for (int i = 0; i < packedMoves.size(); i++) {
+			int move = packedMoves.get(i);
+			board.makeMove(move);
+			keys += board.getZobristKey();
+			board.unmakeMove(move);
+		}
+		return keys;
+	}
+
+	/**
+	 * Evaluates the position after every legal move, as the search does at its
+	 * leaves. Includes making and unmaking the moves.
+	 */
+	@Benchmark
+	public int evaluate() {
+		int score = 0;
+		for (int i = 0; i < packedMoves.size(); i++) {
+			int move = packedMoves.get(i);
+			board.makeMove(move);
+			score += MoveEvaluator.evaluate(board, side);
+			board.unmakeMove(move);
+		}
+		return score;
+	}
+
+}
@@ -0,0 +1,58 @@
+package engine.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import engine.board.Board;
+import engine.piece.Piece;
+import engine.piece.PieceType;
+
+/**
+ * Measures {@link Piece#getPossibleMoves(Board)} for every piece of one type
+ * of the side to move
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+	@Param({ "kiwipete", "italian", "rookEnding", "pawnEnding" })
+	public String position;
+
+	@Param({ "PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING" })
+	public PieceType type;
+
+	private Board board;
+	private Piece[] pieces;
+
+	@Setup
+	public void setup() {
+		board = BenchPositions.board(position);
+		pieces = board.getActivePieces(board.getSideToMove()).stream().filter(p -> p.getType() == type)
+				.toArray(Piece[]::new);
+	}
+
+	@Benchmark
+	public int getPossibleMoves() {
+		int moves = 0;
+		for (Piece piece : pieces)
+			moves += piece.getPossibleMoves(board).size();
+		return moves;
+	}
+
+}
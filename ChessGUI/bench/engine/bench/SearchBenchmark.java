@@ -0,0 +1,63 @@
+package engine.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import engine.Player;
+import engine.ai.MinMax;
+import engine.board.Board;
+import engine.move.Move;
+
+/**
+ * Measures {@link MinMax#getBestMove(Board, Player, int)} at fixed depths.
+ * The transposition table is cleared before every search, so each one starts
+ * cold like the first move of a game.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+	@Param({ "start", "kiwipete", "italian", "rookEnding", "pawnEnding" })
+	public String position;
+
+	@Param({ "2", "3" })
+	public int depth;
+
+	private Board board;
+	private Player player;
+	private final MinMax minmax = new MinMax();
+
+	@Setup
+	public void setup() {
+		board = BenchPositions.board(position);
+		player = new Player(board.getSideToMove());
+	}
+
+	@Setup(Level.Invocation)
+	public void clearTable() {
+		minmax.getTranspositionTable().clear();
+	}
+
+	@Benchmark
+	public Move getBestMove() {
+		return minmax.getBestMove(board, player, depth);
+	}
+
+}
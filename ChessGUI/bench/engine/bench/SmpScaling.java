@@ -0,0 +1,58 @@
+package engine.bench;
+
+import engine.Player;
+import engine.ai.MinMax;
+import engine.ai.SearchLimits;
+import engine.board.Board;
+
+/**
+ * Reports how the lazy SMP search of {@link MinMax} scales with the number of
+ * threads. Every position is searched for a fixed time with each thread
+ * count, starting with an empty transposition table, and the nodes per second
+ * of all threads and the depth reached are printed with the speedup over one
+ * thread.
+ *
+ * Usage: java -cp target/benchmarks.jar engine.bench.SmpScaling [maxThreads]
+ * [millis]
+ *
+ */
+public class SmpScaling {
+
+	private static final String[] POSITIONS = { "start", "kiwipete", "italian", "rookEnding" };
+
+	public static void main(String[] args) {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		long millis = args.length > 1 ? Long.parseLong(args[1]) : 5000;
+		SearchLimits limits = SearchLimits.time(millis, millis);
+
+		// warm up the JIT, so the first thread count is not measured cold
+		Board warmup = BenchPositions.board("kiwipete");
+		new MinMax().getBestMove(warmup, new Player(warmup.getSideToMove()), SearchLimits.time(2000, 2000));
+
+		System.out.printf("%-12s %7s %5s %12s %12s %8s%n", "position", "threads", "depth", "nodes", "nps",
+				"speedup");
+		for (String position : POSITIONS) {
+			long baseNps = 0;
+
+			for (int threads = 1; threads <= maxThreads; threads *= 2) {
+				Board board = BenchPositions.board(position);
+				MinMax minmax = new MinMax();
+				minmax.setThreads(threads);
+
+				long start = System.currentTimeMillis();
+				minmax.getBestMove(board, new Player(board.getSideToMove()), limits);
+				long time = Math.max(1, System.currentTimeMillis() - start);
+				long nodes = minmax.getSearchedNodes();
+				long nps = nodes * 1000 / time;
+				// stops the helper threads
+				minmax.setThreads(1);
+				if (threads == 1)
+					baseNps = nps;
+
+				System.out.printf("%-12s %7d %5d %12d %12d %7.2fx%n", position, threads,
+						minmax.getLastReport().getDepth(), nodes, nps, (double) nps / baseNps);
+			}
+		}
+	}
+
+}
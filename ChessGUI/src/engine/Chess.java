@@ -2,11 +2,18 @@ package engine;
 
 import java.util.ArrayList;
 import java.util.Stack;
+import java.util.function.Consumer;
 
+import engine.ai.EngineService;
 import engine.ai.MinMax;
+import engine.ai.SearchLimits;
 import engine.board.Board;
 import engine.board.Position;
+import engine.book.OpeningBook;
+import engine.monitor.AIMoveEvent;
+import engine.monitor.SearchMonitor;
 import engine.move.Move;
+import engine.move.PackedMove;
 import engine.move.PawnPromotionMove;
 import engine.piece.Alliance;
 import engine.piece.Bishop;
@@ -22,12 +29,22 @@ import engine.piece.Rook;
  */
 public class Chess {
 
+	// game status of the current player
+	public static final int ONGOING = 0;
+	public static final int CHECK = 5;
+
 	// game end status
 	public static final int WHITE_CHECKMATE = 1;
 	public static final int BLACK_CHECKMATE = 2;
 	public static final int WHITE_STALEMATE = 3;
 	public static final int BLACK_STALEMATE = 4;
 
+	// time the AI may think about a move, it finishes the iteration it is in
+	// after the soft limit and stops at the hard limit
+	public static final SearchLimits AI_SEARCH_LIMITS = SearchLimits.time(1000, 3000);
+	// search threads of the AI, one core is left for the GUI
+	public static final int AI_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
 	private final GameObserver observer;
 	private final Player whitePlayer;
 	private final Player blackPlayer;
@@ -38,6 +55,28 @@ public class Chess {
 	private final Stack<Move> moveStack;
 	private final Stack<Move> redoStack;
 	private final MinMax minmax = new MinMax();
+	private final EngineService engine = new EngineService(minmax);
+	private boolean aiThinking;// from the start of the AI search until its move is made
+	private boolean aiMoveWanted;// the player's move is shown, the AI may move
+	private boolean aiResultReady;
+	private int aiResult;// move found before it was wanted
+	private AIMoveEvent aiMoveEvent;
+	private long aiSearchStart;
+	private OpeningBook openingBook;// null to always search
+	private boolean aiBookMove;// the last AI move came from the book
+
+	// pondering, searching the AI reply to the predicted move of the player
+	private boolean pondering = true;
+	private boolean ponderSearching;
+	private long ponderKey;// position after the predicted move
+	private boolean ponderFinished;
+	private int ponderMove;// result of a finished ponder search
+
+	// status and legal moves of the current player, computed once per position
+	private int gameStatus;
+	private ArrayList<Move> legalMoves;
+	private Alliance statusAlliance;// null when the cache is invalid
+	private long statusKey;
 
 	/**
 	 * Constructor
@@ -55,6 +94,7 @@ public class Chess {
 		moveStack = new Stack<Move>();
 		redoStack = new Stack<Move>();
 
+		minmax.setThreads(AI_THREADS);
 	}
 
 	/**
@@ -66,15 +106,9 @@ public class Chess {
 	 */
 	public void makeMove(Position position) {
 
-		// if checkmate return
-		if (board.isCheckMate(currentPlayer.getAlliance())) {
-			observer.notifyGameEnded(currentPlayer.getAlliance() == Alliance.WHITE ? WHITE_CHECKMATE : BLACK_CHECKMATE);
-			return;
-		}
-
-		// if stalemate,return
-		if (board.isStalemate(currentPlayer.getAlliance())) {
-			observer.notifyGameEnded(currentPlayer.getAlliance() == Alliance.WHITE ? WHITE_STALEMATE : BLACK_STALEMATE);
+		// if checkmate or stalemate, return
+		if (isGameOver()) {
+			observer.notifyGameEnded(getGameStatus());
 			return;
 		}
 
@@ -122,6 +156,7 @@ public class Chess {
 
 					//set piece
 					move.setMovingPiece(piece);
+					((PawnPromotionMove) move).setPieceToPromoteTo(piece);
 
 					
 					//execute move
@@ -136,9 +171,12 @@ public class Chess {
 				observer.moveMade(move);
 				observer.notifyMoveStackUpdated(moveStack);
 
-				if (board.isCheckMate(currentPlayer.getAlliance())) {
-					observer.notifyGameEnded(
-							currentPlayer.getAlliance() == Alliance.WHITE ? WHITE_CHECKMATE : BLACK_CHECKMATE);
+				int status = getGameStatus();
+				if (status == WHITE_CHECKMATE || status == BLACK_CHECKMATE) {
+					observer.notifyGameEnded(status);
+				} else if (currentPlayer == blackPlayer && !isGameOver()) {
+					// the AI thinks while the move is animated
+					startAISearch();
 				}
 
 				return;
@@ -150,24 +188,214 @@ public class Chess {
 	}
 
 	/**
-	 * Uses the Alpha-beta AI to make move for the Black player
+	 * Lets the Alpha-beta AI make its move for the Black player, once the move
+	 * of the player is shown. The search was started when the player moved, its
+	 * move is made now if it is done, or as soon as it is.
 	 */
 	public void makeAIMove() {
 		if (currentPlayer.getAlliance() == Alliance.WHITE)
 			return;
 
-		if (board.isCheckMate(currentPlayer.getAlliance())) {
-			observer.notifyGameEnded(currentPlayer.getAlliance() == Alliance.WHITE ? WHITE_CHECKMATE : BLACK_CHECKMATE);
+		if (isGameOver()) {
+			observer.notifyGameEnded(getGameStatus());
 			return;
 		}
 
-		if (board.isStalemate(currentPlayer.getAlliance())) {
-			observer.notifyGameEnded(currentPlayer.getAlliance() == Alliance.WHITE ? WHITE_STALEMATE : BLACK_STALEMATE);
+		aiMoveWanted = true;
+		if (!aiThinking)
+			startAISearch();
+		else if (aiResultReady)
+			playAIMove(aiResult);
+	}
+
+	/**
+	 * Starts the AI search for the Black player on the engine thread. The
+	 * result is handed back to the game thread by the observer.
+	 */
+	private void startAISearch() {
+		if (aiThinking)
+			return;
+
+		long key = board.getZobristKey();
+		aiThinking = true;
+		aiResultReady = false;
+		aiSearchStart = System.currentTimeMillis();
+		aiMoveEvent = new AIMoveEvent();
+		aiMoveEvent.begin();
+
+		int bookMove = probeBook();
+		if (bookMove != PackedMove.NONE) {
+			aiMoveEvent.bookMove = true;
+			stopPondering();
+			aiSearchDone(key, bookMove);
+			return;
+		}
+
+		// the player made the predicted move, the ponder search becomes the
+		// real one
+		if (ponderSearching && ponderKey == key) {
+			aiMoveEvent.ponderHit = true;
+			ponderSearching = false;
+			if (ponderFinished)
+				aiSearchDone(key, ponderMove);
+			else
+				engine.ponderHit(AI_SEARCH_LIMITS);
+			return;
+		}
+
+		stopPondering();
+		engine.search(board, currentPlayer.getAlliance(), AI_SEARCH_LIMITS,
+				move -> observer.runOnGameThread(() -> aiSearchDone(key, move)));
+	}
+
+	/**
+	 * Receives the result of the AI search. The move is made if the player's
+	 * move is shown already, and kept until it is otherwise.
+	 * 
+	 * @param key	zobrist key of the searched position
+	 * @param move	packed move
+	 */
+	private void aiSearchDone(long key, int move) {
+		if (!aiThinking || board.getZobristKey() != key || currentPlayer.getAlliance() != Alliance.BLACK)
+			return;
+
+		if (aiMoveWanted) {
+			playAIMove(move);
+		} else {
+			aiResult = move;
+			aiResultReady = true;
+		}
+	}
+
+	/**
+	 * Starts searching the AI reply to the move the player is predicted to
+	 * make, the reply expected by the last AI search
+	 */
+	private void startPondering() {
+		// a book move leaves no variation to predict the reply from
+		if (!pondering || aiBookMove || isGameOver())
+			return;
+
+		int predicted = minmax.getPonderMove(board);
+		if (predicted == PackedMove.NONE)
+			return;
+
+		Board ponderBoard = board.copy();
+		ponderBoard.makeMove(predicted);
+		// the predicted move ends the game, the AI has nothing to search
+		if (ponderBoard.countLegalMoves(ponderBoard.getSideToMove()) == 0)
+			return;
+		long key = ponderBoard.getZobristKey();
+
+		ponderSearching = true;
+		ponderFinished = false;
+		ponderKey = key;
+		engine.search(ponderBoard, ponderBoard.getSideToMove(), SearchLimits.depth(SearchLimits.MAX_DEPTH),
+				move -> observer.runOnGameThread(() -> ponderDone(key, move)));
+	}
+
+	/**
+	 * Receives the result of a ponder search. It is played if the player made
+	 * the predicted move, and kept for it otherwise.
+	 * 
+	 * @param key	zobrist key of the searched position
+	 * @param move	packed move
+	 */
+	private void ponderDone(long key, int move) {
+		if (aiThinking) {
+			aiSearchDone(key, move);
+		} else if (ponderSearching && ponderKey == key) {
+			ponderFinished = true;
+			ponderMove = move;
+		}
+	}
+
+	/**
+	 * Cancels the ponder search, the player did not make the predicted move
+	 */
+	private void stopPondering() {
+		if (!ponderSearching)
+			return;
+
+		engine.cancel();
+		ponderSearching = false;
+	}
+
+	/**
+	 * @return	a move of the opening book for the current position, NONE if
+	 *         there is no book or the position is not in it
+	 */
+	private int probeBook() {
+		return openingBook == null ? PackedMove.NONE : openingBook.probe(board);
+	}
+
+	/**
+	 * Finds a hint for the current player, in the opening book or else by a
+	 * search on the engine thread. There is none once the game is over.
+	 * 
+	 * @param limits	search limits
+	 * @param callback	receives the move on the game thread, unless the
+	 *                	position changed in the meantime
+	 */
+	public void findHint(SearchLimits limits, Consumer<Move> callback) {
+		if (isGameOver())
+			return;
+
+		int bookMove = probeBook();
+		if (bookMove != PackedMove.NONE) {
+			callback.accept(PackedMove.toMove(bookMove, board));
 			return;
 		}
 
-		if (currentPlayer.getAlliance() == Alliance.BLACK) {
-			Move bestMove = getMinmax().getBestMove(board, currentPlayer, 20);
+		stopPondering();
+		long key = board.getZobristKey();
+		engine.search(board, currentPlayer.getAlliance(), limits, move -> observer.runOnGameThread(() -> {
+			if (board.getZobristKey() == key && move != PackedMove.NONE)
+				callback.accept(PackedMove.toMove(move, board));
+		}));
+	}
+
+	/**
+	 * Cancels the running AI search, the AI does not move
+	 */
+	public void cancelAIMove() {
+		engine.cancel();
+		aiThinking = false;
+		aiMoveWanted = false;
+		ponderSearching = false;
+	}
+
+	/**
+	 * Cancels the running AI search and stops the engine threads, the game
+	 * cannot search any more
+	 */
+	public void dispose() {
+		engine.shutdown();
+		aiThinking = false;
+		aiMoveWanted = false;
+		ponderSearching = false;
+	}
+
+	/**
+	 * Makes the move found by the AI, or reports that its search failed
+	 * 
+	 * @param move	packed move, NONE if the search failed
+	 */
+	private void playAIMove(int move) {
+		aiThinking = false;
+		aiMoveWanted = false;
+		aiResultReady = false;
+		aiBookMove = aiMoveEvent.bookMove;
+
+		SearchMonitor.getInstance().aiMoveMade(System.currentTimeMillis() - aiSearchStart);
+		aiMoveEvent.end();
+		if (aiMoveEvent.shouldCommit()) {
+			aiMoveEvent.move = PackedMove.toString(move);
+			aiMoveEvent.commit();
+		}
+
+		if (move != PackedMove.NONE) {
+			Move bestMove = PackedMove.toMove(move, board);
 
 			bestMove.execute(board);
 			deselectPiece();
@@ -177,6 +405,11 @@ public class Chess {
 			observer.clearHighlights();
 			observer.moveMade(bestMove);
 			observer.notifyMoveStackUpdated(moveStack);
+
+			startPondering();
+		} else {
+			// the game is not over, so the search failed
+			observer.notifyAIMoveFailed();
 		}
 	}
 
@@ -189,6 +422,7 @@ public class Chess {
 		if (moveStack.isEmpty())
 			return false;
 
+		stopPondering();
 		Move move = moveStack.pop();
 		move.undo(board);
 		redoStack.add(move);
@@ -209,6 +443,7 @@ public class Chess {
 		if (redoStack.isEmpty())
 			return false;
 
+		stopPondering();
 		Move move = redoStack.pop();
 		move.execute(board);
 		moveStack.add(move);
@@ -234,7 +469,65 @@ public class Chess {
 	 */
 	public void selectPiece(Piece piece) {
 		selectedPiece = piece;
-		possibleMoves = selectedPiece.getPossibleMoves(board);
+		possibleMoves = new ArrayList<Move>();
+
+		for (Move move : getLegalMoves())
+			if (move.getMovingPiece() == piece)
+				possibleMoves.add(move);
+	}
+
+	/**
+	 * Gets the status of the current player, one of {@link #ONGOING},
+	 * {@link #CHECK}, the checkmate or the stalemate codes
+	 * 
+	 * @return	game status
+	 */
+	public int getGameStatus() {
+		updateStatus();
+		return gameStatus;
+	}
+
+	/**
+	 * @return	true if the current player is checkmated or stalemated
+	 */
+	public boolean isGameOver() {
+		int status = getGameStatus();
+		return status != ONGOING && status != CHECK;
+	}
+
+	/**
+	 * Gets the legal moves of the current player. The list is shared until the
+	 * position changes and must not be modified.
+	 * 
+	 * @return	legal moves
+	 */
+	public ArrayList<Move> getLegalMoves() {
+		updateStatus();
+		return legalMoves;
+	}
+
+	/**
+	 * Computes the game status and the legal moves if the position changed
+	 * since they were last computed
+	 */
+	private void updateStatus() {
+		Alliance alliance = currentPlayer.getAlliance();
+		if (statusAlliance == alliance && statusKey == board.getZobristKey())
+			return;
+
+		legalMoves = board.getAllPossibleMoves(alliance);
+		boolean isWhite = alliance == Alliance.WHITE;
+		boolean inCheck = board.isKingInCheck(alliance);
+
+		if (!legalMoves.isEmpty())
+			gameStatus = inCheck ? CHECK : ONGOING;
+		else if (inCheck)
+			gameStatus = isWhite ? WHITE_CHECKMATE : BLACK_CHECKMATE;
+		else
+			gameStatus = isWhite ? WHITE_STALEMATE : BLACK_STALEMATE;
+
+		statusAlliance = alliance;
+		statusKey = board.getZobristKey();
 	}
 
 	/**
@@ -242,6 +535,9 @@ public class Chess {
 	 */
 	private void changePlayerTurn() {
 		currentPlayer = currentPlayer == whitePlayer ? blackPlayer : whitePlayer;
+
+		// the cached moves may have been executed, so they are not reused
+		statusAlliance = null;
 	}
 
 	/**
@@ -270,4 +566,35 @@ public class Chess {
 	public MinMax getMinmax() {
 		return minmax;
 	}
+
+	/**
+	 * @return	true while the AI searches its move
+	 */
+	public boolean isAIThinking() {
+		return aiThinking;
+	}
+
+	public boolean isPondering() {
+		return pondering;
+	}
+
+	/**
+	 * Sets the opening book the AI and the hints play from before searching
+	 * 
+	 * @param openingBook	opening book, null to always search
+	 */
+	public void setOpeningBook(OpeningBook openingBook) {
+		this.openingBook = openingBook;
+	}
+
+	/**
+	 * Switches pondering, searching on the player's time
+	 * 
+	 * @param pondering	true to ponder
+	 */
+	public void setPondering(boolean pondering) {
+		this.pondering = pondering;
+		if (!pondering)
+			stopPondering();
+	}
 }
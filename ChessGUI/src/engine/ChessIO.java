@@ -60,8 +60,8 @@ public class ChessIO {
 					scol = Integer.parseInt(scan.next());
 					drow = Integer.parseInt(scan.next());
 					dcol = Integer.parseInt(scan.next());
-					src = new Position(srow, scol);
-					des = new Position(drow, dcol);
+					src = Position.of(srow, scol);
+					des = Position.of(drow, dcol);
 
 					move = new Move(src, des, board.getPiece(src));
 					break;
@@ -71,8 +71,8 @@ public class ChessIO {
 					scol = Integer.parseInt(scan.next());
 					drow = Integer.parseInt(scan.next());
 					dcol = Integer.parseInt(scan.next());
-					src = new Position(srow, scol);
-					des = new Position(drow, dcol);
+					src = Position.of(srow, scol);
+					des = Position.of(drow, dcol);
 
 					move = new AttackMove(src, des, board.getPiece(src));
 					break;
@@ -83,16 +83,16 @@ public class ChessIO {
 					scol = Integer.parseInt(scan.next());
 					drow = Integer.parseInt(scan.next());
 					dcol = Integer.parseInt(scan.next());
-					src = new Position(srow, scol);
-					des = new Position(drow, dcol);
+					src = Position.of(srow, scol);
+					des = Position.of(drow, dcol);
 
 					// rook
 					srow = Integer.parseInt(scan.next());
 					scol = Integer.parseInt(scan.next());
 					drow = Integer.parseInt(scan.next());
 					dcol = Integer.parseInt(scan.next());
-					Position src2 = new Position(srow, scol);
-					Position des2 = new Position(drow, dcol);
+					Position src2 = Position.of(srow, scol);
+					Position des2 = Position.of(drow, dcol);
 
 					move = new CastlingMove(src, des, src2, des2, (King) board.getPiece(src),
 							(Rook) board.getPiece(src2));
@@ -103,8 +103,8 @@ public class ChessIO {
 					scol = Integer.parseInt(scan.next());
 					drow = Integer.parseInt(scan.next());
 					dcol = Integer.parseInt(scan.next());
-					src = new Position(srow, scol);
-					des = new Position(drow, dcol);
+					src = Position.of(srow, scol);
+					des = Position.of(drow, dcol);
 
 					// promotion move
 					String promotionPieceType = scan.next().toLowerCase();
@@ -18,4 +18,17 @@ public interface GameObserver {
 	void clearHighlights();
 	void notifyGameEnded(int statusCode);
 	String promptPromotionType();
+
+	/**
+	 * Is called when the AI search failed and the AI did not move
+	 */
+	void notifyAIMoveFailed();
+
+	/**
+	 * Runs the task on the thread of the observer. Is called from the engine
+	 * thread to hand back the results of a search.
+	 * 
+	 * @param task	task
+	 */
+	void runOnGameThread(Runnable task);
 }
@@ -0,0 +1,135 @@
+package engine.ai;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import engine.board.Board;
+import engine.move.PackedMove;
+import engine.piece.Alliance;
+
+/**
+ * Runs the searches of a {@link MinMax} on a background thread, so the thread
+ * asking for a move is never blocked.
+ *
+ * Every search works on a copy of the board taken when it is started, so the
+ * game may go on changing its board. Only one search runs at a time, starting
+ * a search cancels the previous one, even if it is still waiting for the
+ * thread. The service does not time searches, a search stops itself at the
+ * limits it was given.
+ *
+ */
+public class EngineService {
+
+	private final MinMax minmax;
+	private final ExecutorService executor;
+	private SearchTask current;
+
+	/**
+	 * Constructor
+	 *
+	 * @param minmax	the search to run
+	 */
+	public EngineService(MinMax minmax) {
+		this.minmax = minmax;
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Engine");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts a search of the position, cancelling the running one
+	 *
+	 * @param board	board, copied before this returns
+	 * @param side	alliance to move
+	 * @param limits	search limits
+	 * @param callback	receives the best move, packed, on the search thread.
+	 *                	{@link PackedMove#NONE} if the side has no moves or the
+	 *                	search failed. Is not called if the search is cancelled.
+	 *
+	 * @return	the running search
+	 */
+	public synchronized Future<?> search(Board board, Alliance side, SearchLimits limits, IntConsumer callback) {
+		cancel();
+
+		Board snapshot = board.copy();
+		SearchTask task = new SearchTask();
+		task.future = executor.submit(() -> {
+			if (task.control.isStopped())
+				return;
+
+			int move;
+			try {
+				move = minmax.searchBestMove(snapshot, side, limits, task.control);
+			} catch (RuntimeException | Error e) {
+				// the caller still gets an answer, or it would wait forever
+				e.printStackTrace();
+				move = PackedMove.NONE;
+			}
+
+			if (!task.control.isStopped())
+				callback.accept(move);
+		});
+
+		current = task;
+		return task.future;
+	}
+
+	/**
+	 * Puts limits on the last started search, which started without them. It
+	 * gets them even if it has not started yet.
+	 *
+	 * @param limits	search limits counted from the start of the search
+	 */
+	public synchronized void ponderHit(SearchLimits limits) {
+		if (current != null)
+			current.control.ponderHit(limits);
+	}
+
+	/**
+	 * Cancels the running search, its callback is not called
+	 */
+	public synchronized void cancel() {
+		if (current == null)
+			return;
+
+		// stops only this search, the next one has its own control
+		current.control.stop();
+		current.future.cancel(false);
+		current = null;
+	}
+
+	/**
+	 * Cancels the running search and stops the search thread and the helper
+	 * threads of the search, once the cancelled search has returned
+	 */
+	public synchronized void shutdown() {
+		cancel();
+		executor.execute(() -> minmax.setThreads(1));
+		executor.shutdown();
+	}
+
+	/**
+	 * @return	true if a search was started and is neither finished nor
+	 *         cancelled
+	 */
+	public synchronized boolean isSearching() {
+		return current != null && !current.future.isDone();
+	}
+
+	public MinMax getMinMax() {
+		return minmax;
+	}
+
+	/**
+	 * A started search
+	 */
+	private static class SearchTask {
+		private final SearchControl control = new SearchControl();
+		private Future<?> future;
+	}
+
+}
@@ -1,101 +1,1132 @@
 package engine.ai;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import engine.Player;
 import engine.board.Board;
+import engine.board.MoveGenerator;
+import engine.monitor.IterationEvent;
+import engine.monitor.SearchEvent;
+import engine.monitor.SearchMonitor;
 import engine.move.Move;
+import engine.move.MoveList;
+import engine.move.PackedMove;
+import engine.piece.Alliance;
+import engine.piece.PieceType;
 
 /**
  * An implementation of the MinMax AI with Alpha-beta pruning
  *
+ * The search is written in negamax form: every node scores the position for
+ * the side to move, and a child's score is negated for its parent. Results are
+ * kept in a transposition table, which is shared by all searches of this
+ * instance.
+ *
+ * Moves are searched as packed ints made directly on the board, with one
+ * reusable move list per ply, so the search does not create objects. Only the
+ * chosen move is converted to a {@link Move}.
+ *
+ * The search deepens iteratively, one ply per iteration, until a limit of
+ * {@link SearchLimits} is reached. Each iteration starts with the best move of
+ * the previous one, and the best move of the last finished iteration is
+ * played. Within a node the moves are searched in the order of the
+ * {@link MoveOrderer}.
+ *
+ * The moves after the first one of a node are searched with a null window
+ * around alpha (principal variation search), and only searched again with the
+ * full window if they turn out better. Each iteration starts with an aspiration
+ * window around the score of the previous one, which is widened when the score
+ * falls outside. The principal variation is collected in a triangular table,
+ * and followed first by the next iteration.
+ *
+ * The search is selective. Null move pruning skips a node when passing the
+ * turn still fails high, verified by a reduced search when the side has few
+ * pieces and may be in zugzwang. Late quiet moves are searched to a reduced
+ * depth and searched again to the full depth if they beat alpha. Both can be
+ * switched off to compare the results.
+ *
+ * Near the leaves the material balance decides on frontier pruning: nodes far
+ * above beta are cut (reverse futility), nodes far below alpha drop into the
+ * quiescence search (razoring), and quiet moves that cannot reach alpha are
+ * skipped (futility). The margins are per ply of remaining depth.
+ *
+ * At the horizon a quiescence search follows captures and promotions until the
+ * position is quiet, so the evaluation is not taken in the middle of an
+ * exchange. Its nodes are counted apart from the main search.
+ *
+ * With more than one thread the search is a lazy SMP search: helper threads
+ * search copies of the board at the same time, sharing only the transposition
+ * table, and every other helper is one ply ahead. The helpers fill the table
+ * with results the main search then finds, and are stopped when it finishes.
+ * The best move is always the one of the main search.
+ *
+ * Every search leaves its {@link SearchStatistics}, which are also added to
+ * the {@link SearchMonitor}. Searches and their iterations are recorded as
+ * flight recorder events.
+ *
  */
 public class MinMax {
 
-	private Player nodePlayer;// the player that called the minmax
+	public static final int DEFAULT_TABLE_SIZE_MB = 16;
+
+	// scores beyond any evaluation, a mate found at ply p scores MATE - p
+	public static final int MATE = 1000000;
+	private static final int INFINITY = MATE + 1;
+	static final int MAX_PLY = 128;
+
+	// nodes between two checks of the time and node limits
+	private static final int CHECK_INTERVAL = 1024;
+
+	// a capture that cannot raise the score to alpha with this margin is pruned
+	private static final int DELTA_MARGIN = 200;
+
+	// half width of the first aspiration window
+	private static final int ASPIRATION_WINDOW = 50;
+
+	// null move pruning: depth reduction and the smallest depth it is tried at,
+	// sides with at most VERIFY_PIECES pieces besides pawns and king are verified
+	private static final int NULL_MOVE_REDUCTION = 2;
+	private static final int NULL_MOVE_MIN_DEPTH = 3;
+	private static final int VERIFY_PIECES = 2;
+
+	// late move reductions: the moves before LMR_MOVES are never reduced
+	private static final int LMR_MOVES = 3;
+	private static final int LMR_MIN_DEPTH = 3;
+
+	// frontier pruning is done at this depth and below
+	private static final int FRONTIER_DEPTH = 3;
+	public static final int DEFAULT_FUTILITY_MARGIN = 150;
+	public static final int DEFAULT_REVERSE_FUTILITY_MARGIN = 150;
+	public static final int DEFAULT_RAZOR_MARGIN = 300;
+
+	private final TranspositionTable transpositionTable;
+	private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+	private final MoveOrderer moveOrderer = new MoveOrderer(MAX_PLY);
+	// principal variation from each ply, pvTable[ply][ply] is the best move
+	private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+	private final int[] pvLength = new int[MAX_PLY + 1];
+	private SearchListener listener;
+	private boolean nullMovePruning = true;
+	private boolean lateMoveReductions = true;
+	private boolean frontierPruning = true;
+	private int futilityMargin = DEFAULT_FUTILITY_MARGIN;
+	private int reverseFutilityMargin = DEFAULT_REVERSE_FUTILITY_MARGIN;
+	private int razorMargin = DEFAULT_RAZOR_MARGIN;
+
+	// lazy smp, helper 0 is this instance
+	private final int helperIndex;
+	private MinMax[] helpers = new MinMax[0];
+	private ExecutorService executor;
+	private volatile SearchControl control = new SearchControl();
+
+	// state of the running search
+	private volatile SearchLimits limits;
+	private volatile long startTime;
+	private long nodes;
+	private long quiescenceNodes;
+	private long deltaPrunes;
+	private long nullMoveCutoffs;
+	private long lateMoveReSearches;
+	private long futilityPrunes;
+	private long reverseFutilityPrunes;
+	private long razorPrunes;
+	// table probes of this thread, kept apart from the shared table
+	private long tableHits;
+	private long tableMisses;
+	private long tableCollisions;
+	private boolean aborted;
+	private int rootBestMove;
+	private int[] previousPv = new int[0];
+	private boolean followPv;
+	private volatile int bestMoveSoFar;
+	private volatile SearchReport lastReport;
+	private volatile SearchStatistics lastStatistics;
 
 	/**
-	 * Gets the best move for the player
-	 * 
+	 * Constructor
+	 */
+	public MinMax() {
+		this(DEFAULT_TABLE_SIZE_MB);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param tableSizeMb size of the transposition table in megabytes
+	 */
+	public MinMax(int tableSizeMb) {
+		this(new TranspositionTable(tableSizeMb), 0);
+	}
+
+	/**
+	 * Constructor of a helper searching with the shared table
+	 *
+	 * @param transpositionTable table
+	 * @param helperIndex        index of the thread, 0 for the main search
+	 */
+	private MinMax(TranspositionTable transpositionTable, int helperIndex) {
+		this.transpositionTable = transpositionTable;
+		this.helperIndex = helperIndex;
+
+		for (int i = 0; i < moveLists.length; i++)
+			moveLists[i] = new MoveList();
+	}
+
+	/**
+	 * Gets the best move for the player, searching to a fixed depth
+	 *
 	 * @param board         board
 	 * @param currentPlayer current player
 	 * @param depth         depth
-	 * 
+	 *
 	 * @return the best maximized move
 	 */
 	public Move getBestMove(Board board, Player currentPlayer, int depth) {
-		this.nodePlayer = currentPlayer;
-		Move bestMove = null;
-		int max = Integer.MIN_VALUE;
-		int min = Integer.MAX_VALUE;
-		int alpha = min;
-		int beta = max;
-
-		ArrayList<Move> allPossibleMoves = board.getAllPossibleMoves(nodePlayer.getAlliance());
-		for (Move move : allPossibleMoves) {
-			move.execute(board);
-			int eval = minmax(move, board, alpha, beta, depth - 1, false);
-			move.undo(board);
-
-			if (eval > max)
-				bestMove = move;
-			max = Math.max(max, eval);
+		return getBestMove(board, currentPlayer, SearchLimits.depth(depth));
+	}
+
+	/**
+	 * Gets the best move for the player, deepening the search until a limit is
+	 * reached
+	 *
+	 * @param board         board
+	 * @param currentPlayer current player
+	 * @param limits        search limits
+	 *
+	 * @return the best move of the deepest finished iteration, null if the
+	 *         player has no moves
+	 */
+	public Move getBestMove(Board board, Player currentPlayer, SearchLimits limits) {
+		int move = searchBestMove(board, currentPlayer.getAlliance(), limits);
+		return move == PackedMove.NONE ? null : PackedMove.toMove(move, board);
+	}
+
+	/**
+	 * Searches the best move for the alliance, deepening the search until a
+	 * limit is reached or the search is stopped
+	 *
+	 * @param board    board
+	 * @param alliance alliance to move
+	 * @param limits   search limits
+	 *
+	 * @return the best move of the deepest finished iteration, packed.
+	 *         {@link PackedMove#NONE} if the alliance has no moves or the search
+	 *         was stopped before the first iteration finished.
+	 */
+	public int searchBestMove(Board board, Alliance alliance, SearchLimits limits) {
+		return searchBestMove(board, alliance, limits, new SearchControl());
+	}
+
+	/**
+	 * Searches the best move for the alliance under a control of its own
+	 *
+	 * @param board    board
+	 * @param alliance alliance to move
+	 * @param limits   search limits
+	 * @param control  control of this search, a search stopped before it
+	 *                 starts returns at once
+	 *
+	 * @return the best move of the deepest finished iteration, packed
+	 */
+	int searchBestMove(Board board, Alliance alliance, SearchLimits limits, SearchControl control) {
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		long start = System.currentTimeMillis();
+
+		this.control = control;
+		transpositionTable.newSearch();
+		List<Future<?>> helperSearches = startHelpers(board, alliance, limits);
+		try {
+			search(board, alliance, limits);
+		} finally {
+			stopHelpers(helperSearches);
 		}
-		return bestMove;
+
+		lastStatistics = new SearchStatistics(this, System.currentTimeMillis() - start);
+		SearchMonitor.getInstance().searchFinished(lastStatistics);
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.depth = lastStatistics.getDepth();
+			event.nodes = lastStatistics.getSearchedNodes();
+			event.nodesPerSecond = lastStatistics.getNodesPerSecond();
+			event.threads = lastStatistics.getThreads();
+			event.ttMoveCutoffs = lastStatistics.getTTMoveCutoffs();
+			event.tableHits = lastStatistics.getTableHits();
+			event.tableCollisions = lastStatistics.getTableCollisions();
+			event.bestMove = PackedMove.toString(bestMoveSoFar);
+			event.commit();
+		}
+
+		return bestMoveSoFar;
 	}
 
 	/**
-	 * Algorithm for the min max ai with alpha beta pruning.
-	 * 
-	 * 
-	 * @param m                move
-	 * @param board            board
-	 * @param alpha            alpha
-	 * @param beta             beta
-	 * @param depth            depth
-	 * @param maximizingPlayer is maximizing player turn
-	 * 
-	 * @return minmax value
+	 * Stops the running search from another thread. It returns the best move of
+	 * the last finished iteration.
+	 */
+	public void stop() {
+		control.stop();
+	}
+
+	/**
+	 * Puts limits on the running search from another thread, used when a
+	 * search started without limits while pondering is to play its move. The
+	 * time already searched counts, so a search past the soft limit stops at
+	 * once with the best move of the last finished iteration. A search that
+	 * is still waiting to start is reached through
+	 * {@link EngineService#ponderHit(SearchLimits)}.
+	 *
+	 * @param limits	search limits counted from the start of the search
+	 */
+	public void ponderHit(SearchLimits limits) {
+		control.ponderHit(limits);
+	}
+
+	/**
+	 * Starts the helpers on copies of the board. They only stop at the maximum
+	 * depth or when stopped.
+	 *
+	 * @return	the running helper searches
+	 */
+	private List<Future<?>> startHelpers(Board board, Alliance alliance, SearchLimits limits) {
+		List<Future<?>> searches = new ArrayList<>(helpers.length);
+		SearchLimits helperLimits = SearchLimits.depth(limits.getMaxDepth());
+
+		for (MinMax helper : helpers) {
+			Board copy = board.copy();
+			helper.copySettings(this);
+			helper.control = new SearchControl();
+			searches.add(executor.submit(() -> helper.search(copy, alliance, helperLimits)));
+		}
+		return searches;
+	}
+
+	/**
+	 * Stops the helpers and waits for them to finish
+	 */
+	private void stopHelpers(List<Future<?>> searches) {
+		for (MinMax helper : helpers)
+			helper.control.stop();
+
+		boolean interrupted = false;
+		for (Future<?> search : searches) {
+			while (true) {
+				try {
+					search.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Helper search failed", e.getCause());
+				}
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	private void copySettings(MinMax main) {
+		nullMovePruning = main.nullMovePruning;
+		lateMoveReductions = main.lateMoveReductions;
+		frontierPruning = main.frontierPruning;
+		futilityMargin = main.futilityMargin;
+		reverseFutilityMargin = main.reverseFutilityMargin;
+		razorMargin = main.razorMargin;
+	}
+
+	/**
+	 * Deepens the search iteratively until a limit is reached. Odd helpers
+	 * start one ply deeper, so they stay one ply ahead.
+	 *
+	 * @param board    board
+	 * @param alliance alliance to move
+	 * @param limits   search limits
+	 */
+	private void search(Board board, Alliance alliance, SearchLimits limits) {
+		this.limits = limits;
+		startTime = System.currentTimeMillis();
+		nodes = 0;
+		quiescenceNodes = 0;
+		deltaPrunes = 0;
+		nullMoveCutoffs = 0;
+		lateMoveReSearches = 0;
+		futilityPrunes = 0;
+		reverseFutilityPrunes = 0;
+		razorPrunes = 0;
+		tableHits = 0;
+		tableMisses = 0;
+		tableCollisions = 0;
+		aborted = false;
+		bestMoveSoFar = PackedMove.NONE;
+		lastReport = null;
+		previousPv = new int[0];
+		moveOrderer.newSearch();
+		moveOrderer.resetStatistics();
+
+		int score = 0;
+		for (int depth = 1 + (helperIndex & 1); depth <= this.limits.getMaxDepth(); depth++) {
+			IterationEvent event = new IterationEvent();
+			event.begin();
+
+			score = aspirationSearch(board, alliance, depth, score);
+			if (aborted || rootBestMove == PackedMove.NONE)
+				break;
+
+			bestMoveSoFar = rootBestMove;
+			previousPv = Arrays.copyOf(pvTable[0], pvLength[0]);
+			lastReport = new SearchReport(depth, score, nodes, quiescenceNodes, elapsedMillis(),
+					previousPv);
+			if (listener != null)
+				listener.iterationFinished(lastReport);
+
+			event.end();
+			if (helperIndex == 0 && event.shouldCommit()) {
+				event.depth = depth;
+				event.score = score;
+				event.nodes = nodes + quiescenceNodes;
+				event.principalVariation = lastReport.getPrincipalVariationString();
+				event.commit();
+			}
+
+			takePonderHitLimits();
+			// a forced mate needs no deeper search
+			if (Math.abs(score) > MATE - MAX_PLY || elapsedMillis() >= this.limits.getSoftTimeMillis())
+				break;
+		}
+	}
+
+	/**
+	 * Searches the root position in a window around the score of the previous
+	 * iteration, widening the window on the failing side until the score falls
+	 * inside
+	 *
+	 * @param board         board
+	 * @param side          alliance to move
+	 * @param depth         depth
+	 * @param previousScore score of the previous iteration
+	 *
+	 * @return score of the best move, its move is kept in rootBestMove
 	 */
-	private int minmax(Move m, Board board, int alpha, int beta, int depth, boolean maximizingPlayer) {
-		if (depth == 0 || board.isCheckMate(m.getMovingPiece().getAlliance())) {
-			int score = MoveEvaluator.score(m, board);
-			return score * (maximizingPlayer ? -1 : 1);
+	private int aspirationSearch(Board board, Alliance side, int depth, int previousScore) {
+		int alpha = -INFINITY;
+		int beta = INFINITY;
+		int delta = ASPIRATION_WINDOW;
+
+		// mate scores are too far from the others to guess a window
+		if (depth > 1 && Math.abs(previousScore) <= MATE - MAX_PLY) {
+			alpha = previousScore - delta;
+			beta = previousScore + delta;
+		}
+
+		while (true) {
+			int score = searchRoot(board, side, depth, alpha, beta);
+			if (aborted)
+				return 0;
+
+			// without moves or with a full window there is nothing to widen
+			if (rootBestMove == PackedMove.NONE || (alpha == -INFINITY && beta == INFINITY))
+				return score;
 
+			if (score <= alpha)
+				alpha = Math.max(score - delta, -INFINITY);
+			else if (score >= beta)
+				beta = Math.min(score + delta, INFINITY);
+			else
+				return score;
+			delta *= 2;
 		}
+	}
+
+	/**
+	 * Searches all moves of the root position to the depth
+	 *
+	 * @param board board
+	 * @param side  alliance to move
+	 * @param depth depth
+	 * @param alpha alpha
+	 * @param beta  beta
+	 *
+	 * @return score of the best move, its move is kept in rootBestMove
+	 */
+	private int searchRoot(Board board, Alliance side, int depth, int alpha, int beta) {
+		long key = board.getZobristKey();
+		int originalAlpha = alpha;
+		int max = -INFINITY;
+		rootBestMove = PackedMove.NONE;
+		pvLength[0] = 0;
+
+		MoveList moves = moveLists[0];
+		board.getAllPossibleMoves(side, moves);
+		int ttMove = bestMoveSoFar != PackedMove.NONE ? bestMoveSoFar
+				: TranspositionTable.getMove(probeTable(key));
+		moveOrderer.scoreMoves(moves, 0, ttMove, side);
 
-		if (maximizingPlayer) {
-			ArrayList<Move> moves = board.getAllPossibleMoves(nodePlayer.getAlliance());
-			int maxEval = Integer.MIN_VALUE;
-			for (Move move : moves) {
-				move.execute(board);
-				int eval = minmax(move, board, alpha, beta, depth - 1, false);
-				move.undo(board);
-				maxEval = Math.max(maxEval, eval);
-				alpha = Math.max(alpha, eval);
-				if (beta <= alpha)
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moveOrderer.nextMove(moves, 0, i);
+			followPv = i == 0;
+			int eval = searchChild(board, side, move, alpha, beta, depth, 0, i, false);
+
+			if (aborted)
+				return 0;
+
+			if (eval > max) {
+				rootBestMove = move;
+				max = eval;
+			}
+			if (eval > alpha) {
+				alpha = eval;
+				updatePv(move, 0);
+				if (alpha >= beta)
 					break;
 			}
+		}
+
+		if (rootBestMove != PackedMove.NONE)
+			transpositionTable.store(key, depth, bound(max, originalAlpha, beta), max,
+					PackedMove.toShort(rootBestMove));
+		return max;
+	}
 
-			return maxEval;
+	/**
+	 * Makes the move and searches the child position. The first move of a node
+	 * gets the full window, the others a null window that is only widened if
+	 * the move beats alpha. Reducible moves that do not give check are first
+	 * searched to a reduced depth.
+	 *
+	 * @param board     board
+	 * @param side      alliance making the move
+	 * @param move      packed move
+	 * @param alpha     alpha
+	 * @param beta      beta
+	 * @param depth     depth of the node making the move
+	 * @param ply       distance of that node from the root
+	 * @param index     index of the move in the search order
+	 * @param reducible true if the move may be reduced
+	 *
+	 * @return score of the move for the side making it
+	 */
+	private int searchChild(Board board, Alliance side, int move, int alpha, int beta, int depth, int ply,
+			int index, boolean reducible) {
+		Alliance opposing = side.getOpposing();
+		int eval;
 
+		board.makeMove(move);
+		if (index == 0) {
+			eval = -minmax(board, opposing, -beta, -alpha, depth - 1, ply + 1, true);
 		} else {
-			ArrayList<Move> moves = board.getAllPossibleMoves(nodePlayer.getAlliance().getOpposing());
-			int minEval = Integer.MAX_VALUE;
-			for (Move move : moves) {
-				move.execute(board);
-				int eval = minmax(move, board, alpha, beta, depth - 1, true);
-				move.undo(board);
-				minEval = Math.min(minEval, eval);
-				beta = Math.min(beta, eval);
-				if (beta <= alpha)
+			int reduction = 0;
+			if (reducible && !board.isKingInCheck(opposing))
+				reduction = index >= 2 * LMR_MOVES && depth >= 2 * LMR_MIN_DEPTH ? 2 : 1;
+
+			eval = -minmax(board, opposing, -alpha - 1, -alpha, depth - 1 - reduction, ply + 1, true);
+			if (reduction > 0 && eval > alpha && !aborted) {
+				lateMoveReSearches++;
+				eval = -minmax(board, opposing, -alpha - 1, -alpha, depth - 1, ply + 1, true);
+			}
+			if (eval > alpha && eval < beta && !aborted)
+				eval = -minmax(board, opposing, -beta, -alpha, depth - 1, ply + 1, true);
+		}
+		board.unmakeMove(move);
+
+		followPv = false;
+		return eval;
+	}
+
+	/**
+	 * @return	true if the move puts the king of the other side in check
+	 */
+	private static boolean givesCheck(Board board, int move, Alliance side) {
+		board.makeMove(move);
+		boolean check = board.isKingInCheck(side.getOpposing());
+		board.unmakeMove(move);
+		return check;
+	}
+
+	/**
+	 * Makes the move the best of the ply, followed by the variation of the next
+	 * ply
+	 */
+	private void updatePv(int move, int ply) {
+		int[] pv = pvTable[ply];
+		pv[ply] = move;
+		System.arraycopy(pvTable[ply + 1], ply + 1, pv, ply + 1, pvLength[ply + 1] - (ply + 1));
+		pvLength[ply] = pvLength[ply + 1];
+	}
+
+	private static int bound(int score, int alpha, int beta) {
+		if (score <= alpha)
+			return TranspositionTable.UPPER_BOUND;
+		if (score >= beta)
+			return TranspositionTable.LOWER_BOUND;
+		return TranspositionTable.EXACT;
+	}
+
+	/**
+	 * Algorithm for the min max ai with alpha beta pruning.
+	 *
+	 *
+	 * @param board board
+	 * @param side  alliance to move
+	 * @param alpha alpha
+	 * @param beta  beta
+	 * @param depth depth
+	 * @param ply   distance from the root
+	 * @param allowNullMove	false right after a null move, so two are never made
+	 *                     	in a row
+	 *
+	 * @return minmax value for the side to move
+	 */
+	private int minmax(Board board, Alliance side, int alpha, int beta, int depth, int ply, boolean allowNullMove) {
+		if (depth == 0)
+			return quiescence(board, side, alpha, beta, ply);
+
+		pvLength[ply] = ply;
+		if (++nodes % CHECK_INTERVAL == 0)
+			checkLimits();
+		if (aborted)
+			return 0;
+
+		// look up earlier searches of the position
+		long key = board.getZobristKey();
+		long entry = probeTable(key);
+		if (entry != 0 && TranspositionTable.getDepth(entry) >= depth) {
+			int score = fromTableScore(TranspositionTable.getScore(entry), ply);
+
+			switch (TranspositionTable.getBound(entry)) {
+			case TranspositionTable.EXACT:
+				return score;
+			case TranspositionTable.LOWER_BOUND:
+				alpha = Math.max(alpha, score);
+				break;
+			case TranspositionTable.UPPER_BOUND:
+				beta = Math.min(beta, score);
+				break;
+			}
+
+			if (alpha >= beta)
+				return score;
+		}
+
+		boolean inCheck = board.isKingInCheck(side);
+		boolean pvNode = beta - alpha > 1;
+
+		boolean futile = false;
+		if (frontierPruning && !pvNode && !inCheck && depth <= FRONTIER_DEPTH) {
+			int staticEval = MoveEvaluator.evaluateMaterial(board, side);
+
+			// so far above beta that no reply will bring it down
+			if (staticEval - reverseFutilityMargin * depth >= beta && beta < MATE - MAX_PLY) {
+				reverseFutilityPrunes++;
+				return staticEval - reverseFutilityMargin * depth;
+			}
+
+			// so far below alpha that only captures can help
+			if (depth <= FRONTIER_DEPTH - 1 && staticEval + razorMargin * depth < alpha) {
+				int eval = quiescence(board, side, alpha - 1, alpha, ply);
+				if (aborted)
+					return 0;
+				if (eval < alpha) {
+					razorPrunes++;
+					return eval;
+				}
+			}
+
+			// quiet moves are skipped if even the margin does not reach alpha
+			futile = staticEval + futilityMargin * depth <= alpha && alpha > -MATE + MAX_PLY;
+		}
+
+		// if passing the turn still fails high, a real move will too
+		if (nullMovePruning && allowNullMove && !pvNode && !inCheck && depth >= NULL_MOVE_MIN_DEPTH
+				&& beta < MATE - MAX_PLY) {
+			int pieces = board.getPieceCount(side) - board.getPieceCount(side, PieceType.PAWN) - 1;
+
+			// with only pawns zugzwang is too likely to pass
+			if (pieces > 0) {
+				int reduction = depth > 6 ? NULL_MOVE_REDUCTION + 1 : NULL_MOVE_REDUCTION;
+				followPv = false;
+
+				board.makeNullMove();
+				int eval = -minmax(board, side.getOpposing(), -beta, -beta + 1, depth - 1 - reduction, ply + 1,
+						false);
+				board.unmakeNullMove();
+
+				if (aborted)
+					return 0;
+
+				// few pieces, verify with a reduced search without null moves
+				if (eval >= beta && pieces <= VERIFY_PIECES)
+					eval = minmax(board, side, beta - 1, beta, depth - 1 - reduction, ply, false);
+
+				if (aborted)
+					return 0;
+
+				if (eval >= beta) {
+					nullMoveCutoffs++;
+					pvLength[ply] = ply;
+					// a mate found after passing is not proven
+					return eval > MATE - MAX_PLY ? beta : eval;
+				}
+			}
+		}
+
+		MoveList moves = moveLists[ply];
+		board.getAllPossibleMoves(side, moves);
+
+		// no moves, checkmate or stalemate
+		if (moves.isEmpty())
+			return inCheck ? -MATE + ply : 0;
+
+		// the principal variation of the previous iteration is followed first,
+		// then the best move of an earlier search
+		int pvMove = PackedMove.NONE;
+		if (followPv && ply < previousPv.length)
+			pvMove = previousPv[ply];
+		moveOrderer.scoreMoves(moves, ply, pvMove != PackedMove.NONE ? pvMove : TranspositionTable.getMove(entry),
+				side);
+
+		int originalAlpha = alpha;
+		int maxEval = -INFINITY;
+		int bestMove = PackedMove.NONE;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moveOrderer.nextMove(moves, ply, i);
+			followPv = followPv && move == pvMove;
+
+			if (futile && i > 0 && !PackedMove.isCapture(move) && !PackedMove.isPromotion(move)
+					&& !givesCheck(board, move, side)) {
+				futilityPrunes++;
+				continue;
+			}
+
+			boolean reducible = lateMoveReductions && !inCheck && i >= LMR_MOVES && depth >= LMR_MIN_DEPTH
+					&& !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+			int eval = searchChild(board, side, move, alpha, beta, depth, ply, i, reducible);
+
+			// the scores of an unfinished search are not valid
+			if (aborted)
+				return 0;
+
+			if (eval > maxEval) {
+				maxEval = eval;
+				bestMove = move;
+			}
+			if (eval > alpha) {
+				alpha = eval;
+				updatePv(move, ply);
+				if (alpha >= beta) {
+					moveOrderer.cutoff(move, side, depth, ply, i);
 					break;
+				}
+			}
+		}
+
+		transpositionTable.store(key, depth, bound(maxEval, originalAlpha, beta), toTableScore(maxEval, ply),
+				PackedMove.toShort(bestMove));
+
+		return maxEval;
+	}
+
+	/**
+	 * Searches captures and promotions until the position is quiet. The side to
+	 * move may stand pat with the static evaluation, except when in check, where
+	 * all evasions are searched.
+	 *
+	 * @param board board
+	 * @param side  alliance to move
+	 * @param alpha alpha
+	 * @param beta  beta
+	 * @param ply   distance from the root
+	 *
+	 * @return quiescence value for the side to move
+	 */
+	private int quiescence(Board board, Alliance side, int alpha, int beta, int ply) {
+		pvLength[ply] = ply;
+		if (++quiescenceNodes % CHECK_INTERVAL == 0)
+			checkLimits();
+		if (aborted)
+			return 0;
+
+		boolean inCheck = board.isKingInCheck(side);
+		int standPat = -INFINITY;
+		if (!inCheck) {
+			standPat = MoveEvaluator.evaluate(board, side);
+			if (standPat >= beta || ply >= MAX_PLY)
+				return standPat;
+			alpha = Math.max(alpha, standPat);
+		} else if (ply >= MAX_PLY) {
+			return MoveEvaluator.evaluate(board, side);
+		}
+
+		MoveList moves = moveLists[ply];
+		if (inCheck) {
+			board.getAllPossibleMoves(side, moves);
+			if (moves.isEmpty())
+				return -MATE + ply;
+		} else {
+			MoveGenerator.generateCaptures(board, side, moves);
+		}
+		moveOrderer.scoreMoves(moves, ply, PackedMove.NONE, side);
+
+		int maxEval = standPat;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moveOrderer.nextMove(moves, ply, i);
+
+			// delta pruning, even winning the piece for free does not reach alpha
+			if (!inCheck && !PackedMove.isPromotion(move)
+					&& standPat + PackedMove.getCapturedType(move).getValue() + DELTA_MARGIN <= alpha) {
+				deltaPrunes++;
+				continue;
+			}
+
+			board.makeMove(move);
+			int eval = -quiescence(board, side.getOpposing(), -beta, -alpha, ply + 1);
+			board.unmakeMove(move);
+
+			if (aborted)
+				return 0;
+
+			if (eval > maxEval) {
+				maxEval = eval;
+				if (eval > alpha) {
+					alpha = eval;
+					if (alpha >= beta)
+						break;
+				}
 			}
+		}
+
+		return maxEval;
+	}
+
+	/**
+	 * Stops the search once the hard time limit or the node limit is reached,
+	 * or the soft limit of a ponder hit. The first iteration is always
+	 * finished, unless the search is stopped.
+	 */
+	private void checkLimits() {
+		if (control.isStopped()) {
+			aborted = true;
+			return;
+		}
+		if (bestMoveSoFar == PackedMove.NONE)
+			return;
+
+		// past the soft limit of a ponder hit the finished iteration is played
+		if (takePonderHitLimits() && elapsedMillis() >= limits.getSoftTimeMillis()) {
+			aborted = true;
+			return;
+		}
+
+		if (nodes + quiescenceNodes >= limits.getMaxNodes() || elapsedMillis() >= limits.getHardTimeMillis())
+			aborted = true;
+	}
 
-			return minEval;
+	/**
+	 * Takes the limits of a ponder hit in place of the ones the search started
+	 * with
+	 *
+	 * @return	true if there was a ponder hit
+	 */
+	private boolean takePonderHitLimits() {
+		SearchLimits ponderHitLimits = control.takePonderHitLimits();
+		if (ponderHitLimits == null)
+			return false;
+
+		limits = ponderHitLimits;
+		return true;
+	}
 
+	/**
+	 * Looks up the position in the shared table and counts the probe
+	 *
+	 * @return	data word of the entry, 0 if the position is not in the table
+	 */
+	private long probeTable(long key) {
+		long entry = transpositionTable.probe(key);
+		if (entry != 0) {
+			tableHits++;
+		} else {
+			tableMisses++;
+			if (transpositionTable.isBucketUsed(key))
+				tableCollisions++;
 		}
+		return entry;
+	}
+
+	private long elapsedMillis() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	// mate scores are stored relative to the node, so they stay valid at any ply
+
+	private static int toTableScore(int score, int ply) {
+		if (score > MATE - MAX_PLY)
+			return score + ply;
+		if (score < -MATE + MAX_PLY)
+			return score - ply;
+		return score;
+	}
+
+	private static int fromTableScore(int score, int ply) {
+		if (score > MATE - MAX_PLY)
+			return score - ply;
+		if (score < -MATE + MAX_PLY)
+			return score + ply;
+		return score;
+	}
+
+	// getters and setters
+
+	public TranspositionTable getTranspositionTable() {
+		return transpositionTable;
+	}
+
+	public MoveOrderer getMoveOrderer() {
+		return moveOrderer;
+	}
+
+	/**
+	 * @return	the best move of the last finished iteration of the running or
+	 *         last search, packed. Can be read from any thread.
+	 */
+	public int getBestMoveSoFar() {
+		return bestMoveSoFar;
+	}
+
+	/**
+	 * @return	principal variation of the last finished iteration, packed moves
+	 */
+	public int[] getPrincipalVariation() {
+		return previousPv.clone();
+	}
+
+	/**
+	 * Predicts the reply to the best move of the last search, the move to
+	 * ponder on. It is the second move of the principal variation, or the move
+	 * stored in the table when the variation was cut short.
+	 *
+	 * @param board	board after the best move, not searched by any thread
+	 *
+	 * @return	the predicted reply, packed, {@link PackedMove#NONE} if unknown
+	 */
+	public int getPonderMove(Board board) {
+		if (previousPv.length >= 2)
+			return previousPv[1];
+
+		int tableMove = TranspositionTable.getMove(transpositionTable.probe(board.getZobristKey()));
+		if (tableMove == TranspositionTable.NO_MOVE)
+			return PackedMove.NONE;
+
+		MoveList moves = new MoveList();
+		board.getAllPossibleMoves(board.getSideToMove(), moves);
+		for (int i = 0; i < moves.size(); i++)
+			if (PackedMove.toShort(moves.get(i)) == tableMove)
+				return moves.get(i);
+		return PackedMove.NONE;
+	}
+
+	/**
+	 * @return	statistics of the last finished search, null if none finished
+	 */
+	public SearchStatistics getLastStatistics() {
+		return lastStatistics;
+	}
+
+	/**
+	 * @return	report of the last finished iteration, null if none finished yet
+	 */
+	public SearchReport getLastReport() {
+		return lastReport;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
 
+	public long getQuiescenceNodes() {
+		return quiescenceNodes;
+	}
+
+	/**
+	 * @return	nodes of the main and quiescence search of all threads in the last
+	 *         search
+	 */
+	public long getSearchedNodes() {
+		long total = nodes + quiescenceNodes;
+		for (MinMax helper : helpers)
+			total += helper.nodes + helper.quiescenceNodes;
+		return total;
+	}
+
+	public int getThreads() {
+		return helpers.length + 1;
+	}
+
+	/**
+	 * @return	table probes of all threads in the last search that found the
+	 *         position
+	 */
+	public long getTableHits() {
+		long total = tableHits;
+		for (MinMax helper : helpers)
+			total += helper.tableHits;
+		return total;
+	}
+
+	/**
+	 * @return	table probes of all threads in the last search that did not find
+	 *         the position
+	 */
+	public long getTableMisses() {
+		long total = tableMisses;
+		for (MinMax helper : helpers)
+			total += helper.tableMisses;
+		return total;
+	}
+
+	/**
+	 * @return	misses of all threads in the last search on a bucket holding
+	 *         other positions
+	 */
+	public long getTableCollisions() {
+		long total = tableCollisions;
+		for (MinMax helper : helpers)
+			total += helper.tableCollisions;
+		return total;
+	}
+
+	/**
+	 * @return	captures skipped by delta pruning in the running or last search
+	 */
+	public long getDeltaPrunes() {
+		return deltaPrunes;
+	}
+
+	public long getNullMoveCutoffs() {
+		return nullMoveCutoffs;
+	}
+
+	/**
+	 * @return	reduced moves that were searched again to the full depth
+	 */
+	public long getLateMoveReSearches() {
+		return lateMoveReSearches;
+	}
+
+	public long getFutilityPrunes() {
+		return futilityPrunes;
+	}
+
+	public long getReverseFutilityPrunes() {
+		return reverseFutilityPrunes;
+	}
+
+	/**
+	 * @return	nodes cut after razoring dropped them into the quiescence search
+	 */
+	public long getRazorPrunes() {
+		return razorPrunes;
+	}
+
+	public boolean isNullMovePruning() {
+		return nullMovePruning;
+	}
+
+	public boolean isLateMoveReductions() {
+		return lateMoveReductions;
+	}
+
+	public boolean isFrontierPruning() {
+		return frontierPruning;
+	}
+
+	public int getFutilityMargin() {
+		return futilityMargin;
+	}
+
+	public int getReverseFutilityMargin() {
+		return reverseFutilityMargin;
+	}
+
+	public int getRazorMargin() {
+		return razorMargin;
+	}
+
+	/**
+	 * Sets the number of threads searching, must not be called during a search
+	 * 
+	 * @param threads	number of threads, 1 searches in the calling thread only
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Threads must be at least 1: " + threads);
+		if (threads == getThreads())
+			return;
+
+		if (executor != null)
+			executor.shutdown();
+		executor = null;
+		helpers = new MinMax[threads - 1];
+
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(threads - 1, r -> {
+				Thread thread = new Thread(r, "MinMax helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			for (int i = 0; i < helpers.length; i++)
+				helpers[i] = new MinMax(transpositionTable, i + 1);
+		}
+	}
+
+	public void setSearchListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	public void setNullMovePruning(boolean nullMovePruning) {
+		this.nullMovePruning = nullMovePruning;
+	}
+
+	public void setLateMoveReductions(boolean lateMoveReductions) {
+		this.lateMoveReductions = lateMoveReductions;
+	}
+
+	/**
+	 * Switches futility pruning, reverse futility pruning and razoring
+	 * 
+	 * @param frontierPruning	true to prune
+	 */
+	public void setFrontierPruning(boolean frontierPruning) {
+		this.frontierPruning = frontierPruning;
+	}
+
+	/**
+	 * @param futilityMargin	margin per ply of depth for futility pruning
+	 */
+	public void setFutilityMargin(int futilityMargin) {
+		this.futilityMargin = futilityMargin;
+	}
+
+	/**
+	 * @param reverseFutilityMargin	margin per ply of depth for reverse futility
+	 *                             	pruning
+	 */
+	public void setReverseFutilityMargin(int reverseFutilityMargin) {
+		this.reverseFutilityMargin = reverseFutilityMargin;
+	}
+
+	/**
+	 * @param razorMargin	margin per ply of depth for razoring
+	 */
+	public void setRazorMargin(int razorMargin) {
+		this.razorMargin = razorMargin;
 	}
 
 }
@@ -1,77 +1,49 @@
 package engine.ai;
 
-import java.util.ArrayList;
-
 import engine.board.Board;
-import engine.move.AttackMove;
-import engine.move.CastlingMove;
-import engine.move.Move;
-import engine.move.PawnPromotionMove;
 import engine.piece.Alliance;
-import engine.piece.Bishop;
-import engine.piece.King;
-import engine.piece.Knight;
-import engine.piece.Pawn;
-import engine.piece.Piece;
-import engine.piece.Queen;
-import engine.piece.Rook;
 
 /**
- * A static Move Evaluator for the chess game. It evaluates by material,
- * mobility, check, checkmate and move type
+ * A static evaluator for the chess game. It evaluates positions by material,
+ * mobility, check and checkmate. The score depends on the position alone, so
+ * it can be stored in the transposition table.
  *
  */
 public class MoveEvaluator {
 
+	// bonus for checkmating, kept well below MinMax.MATE so sums cannot overflow
+	public static final int CHECKMATE_SCORE = 100000;
+
 	/**
-	 * Scores the move
+	 * Evaluates the position by material only, a cheap estimate of
+	 * {@link #evaluate(Board, Alliance)} for pruning decisions
 	 * 
-	 * @param move  move
-	 * @param board board
+	 * @param board    board
+	 * @param alliance alliance to score the position for
 	 * 
-	 * @return the score
+	 * @return the material balance for the alliance
 	 */
-	public static int score(Move move, Board board) {
-		Alliance alliance = move.getMovingPiece().getAlliance();
-		Alliance opposing = alliance.getOpposing();
-
-		int p1Value = getPiecesValue(board, alliance) + mobility(board, alliance) + check(board, alliance)
-				+ checkmate(board, alliance);
-		int p2Value = getPiecesValue(board, opposing) + mobility(board, opposing) + check(board, opposing)
-				+ checkmate(board, opposing);
-
-
-		return (p1Value + rateMove(move) + moveDanger(move,board) - p2Value);
-	}
-	
-	private static int moveDanger(Move move,Board board) {
-		ArrayList<Move> opponentMoves = board.getAllPossibleMoves(move.getMovingPiece().getAlliance().getOpposing());
-		
-		for(Move m : opponentMoves) 
-			if(m instanceof AttackMove && m.getDestination().equals(move.getDestination()))
-				return -50;
-		
-		
-		return 0;
+	public static int evaluateMaterial(Board board, Alliance alliance) {
+		return getPiecesValue(board, alliance) - getPiecesValue(board, alliance.getOpposing());
 	}
 
 	/**
-	 * Rates the move based on its type
+	 * Evaluates the position
 	 * 
-	 * @param move move
+	 * @param board    board
+	 * @param alliance alliance to score the position for
 	 * 
-	 * @return a constant rating
+	 * @return the score for the alliance
 	 */
-	private static int rateMove(Move move) {
-		if (move instanceof PawnPromotionMove)
-			return 100;
-		else if (move instanceof AttackMove) {
-			return 50 + getPieceValue(((AttackMove) (move)).getAttackedPiece()) / 10;
+	public static int evaluate(Board board, Alliance alliance) {
+		Alliance opposing = alliance.getOpposing();
 
-		} else if (move instanceof CastlingMove)
-			return 50;
+		int p1Value = getPiecesValue(board, alliance) + mobility(board, alliance) + check(board, alliance)
+				+ checkmate(board, alliance);
+		int p2Value = getPiecesValue(board, opposing) + mobility(board, opposing) + check(board, opposing)
+				+ checkmate(board, opposing);
 
-		return 1;
+		return p1Value - p2Value;
 	}
 
 	/**
@@ -82,7 +54,7 @@ public class MoveEvaluator {
 	 * @return number of possible move available
 	 */
 	private static int mobility(Board board, Alliance alliance) {
-		return board.getAllPossibleMoves(alliance).size();
+		return board.countLegalMoves(alliance);
 	}
 
 	/**
@@ -94,7 +66,7 @@ public class MoveEvaluator {
 	 * @return score for checkmate
 	 */
 	private static int checkmate(Board board, Alliance alliance) {
-		return board.isCheckMate(alliance.getOpposing()) ? Integer.MAX_VALUE : 0;
+		return board.isCheckMate(alliance.getOpposing()) ? CHECKMATE_SCORE : 0;
 	}
 
 	/**
@@ -118,35 +90,6 @@ public class MoveEvaluator {
 	 * @return pieces value
 	 */
 	private static int getPiecesValue(Board board, Alliance alliance) {
-		int piecesValue = 0;
-		ArrayList<Piece> pieces = board.getActivePieces(alliance);
-
-		for (Piece piece : pieces)
-			piecesValue += getPieceValue(piece);
-
-		return piecesValue;
-
-	}
-
-	/**
-	 * 
-	 * @param piece piece
-	 * @return score value for the piece
-	 */
-	private static int getPieceValue(Piece piece) {
-		if (piece instanceof Pawn)
-			return 100;
-		else if (piece instanceof Rook)
-			return 200;
-		else if (piece instanceof Knight)
-			return 300;
-		else if (piece instanceof Bishop)
-			return 400;
-		else if (piece instanceof Queen)
-			return 500;
-		else if (piece instanceof King)
-			return 1000;
-
-		return 0;
+		return board.getMaterial(alliance);
 	}
 }
@@ -0,0 +1,206 @@
+package engine.ai;
+
+import java.util.Arrays;
+
+import engine.move.MoveList;
+import engine.move.PackedMove;
+import engine.piece.Alliance;
+import engine.piece.PieceType;
+
+/**
+ * Orders the moves of a node so the moves most likely to cause a cutoff are
+ * searched first. In order:
+ * 
+ * <pre>
+ * 1. the move of the transposition table (the best move of an earlier search)
+ * 2. captures and promotions, most valuable victim first and least valuable
+ *    attacker first among those (MVV-LVA)
+ * 3. the two killer moves of the ply, quiet moves that caused a cutoff in a
+ *    sibling node
+ * 4. the other quiet moves, by their history score
+ * </pre>
+ * 
+ * Moves are scored once per node and picked one at a time, so the moves after
+ * a cutoff are never sorted. The orderer also counts how often the first
+ * searched move causes the cutoff, which measures the quality of the order.
+ *
+ */
+public class MoveOrderer {
+
+	private static final int TT_MOVE_SCORE = 1 << 30;
+	private static final int CAPTURE_SCORE = 1 << 28;
+	private static final int KILLER_SCORE = 1 << 26;
+	private static final int MAX_HISTORY = KILLER_SCORE - 1;
+
+	// the victim outweighs the attacker, the smallest victim step (100) times
+	// it is above the most valuable attacker (the king, 1000)
+	private static final int VICTIM_WEIGHT = 16;
+	// a queen promotion ranks like capturing a queen
+	private static final int PROMOTION_BONUS = PieceType.QUEEN.getValue() * VICTIM_WEIGHT;
+
+	private final int[][] scores;// [ply][move index]
+	private final int[][] killers;// [ply][slot]
+	private final int[][][] history;// [alliance][source][destination]
+
+	private long cutoffs;
+	private long firstMoveCutoffs;
+	private long ttMoveCutoffs;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxPly	maximum ply of the search
+	 */
+	public MoveOrderer(int maxPly) {
+		scores = new int[maxPly + 1][MoveList.CAPACITY];
+		killers = new int[maxPly + 1][2];
+		history = new int[Alliance.values().length][64][64];
+	}
+
+	/**
+	 * Prepares the orderer for a new search. Killers are cleared and the
+	 * history scores are halved, so older searches count less.
+	 */
+	public void newSearch() {
+		for (int[] slots : killers)
+			Arrays.fill(slots, PackedMove.NONE);
+
+		for (int[][] bySource : history)
+			for (int[] byDestination : bySource)
+				for (int i = 0; i < byDestination.length; i++)
+					byDestination[i] /= 2;
+	}
+
+	/**
+	 * Scores the moves of a node
+	 * 
+	 * @param moves	moves of the node
+	 * @param ply	ply of the node
+	 * @param ttMove	move of the transposition table, {@link PackedMove#NONE} if
+	 *              none
+	 * @param side	alliance to move
+	 */
+	public void scoreMoves(MoveList moves, int ply, int ttMove, Alliance side) {
+		int[] moveScores = scores[ply];
+		int[][] sideHistory = history[side.ordinal()];
+		int ttShort = PackedMove.toShort(ttMove);
+
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+
+			if (ttMove != PackedMove.NONE && PackedMove.toShort(move) == ttShort)
+				moveScores[i] = TT_MOVE_SCORE;
+			else if (PackedMove.isCapture(move) || PackedMove.isPromotion(move))
+				moveScores[i] = CAPTURE_SCORE + mvvLva(move);
+			else if (move == killers[ply][0])
+				moveScores[i] = KILLER_SCORE + 1;
+			else if (move == killers[ply][1])
+				moveScores[i] = KILLER_SCORE;
+			else
+				moveScores[i] = sideHistory[PackedMove.getSource(move)][PackedMove.getDestination(move)];
+		}
+	}
+
+	/**
+	 * Moves the best scored of the remaining moves to the index
+	 * 
+	 * @param moves	moves of the node, scored with
+	 *              {@link #scoreMoves(MoveList, int, int, Alliance)}
+	 * @param ply	ply of the node
+	 * @param index	index of the next move to search
+	 * 
+	 * @return	the move to search next
+	 */
+	public int nextMove(MoveList moves, int ply, int index) {
+		int[] moveScores = scores[ply];
+		int best = index;
+
+		for (int i = index + 1; i < moves.size(); i++)
+			if (moveScores[i] > moveScores[best])
+				best = i;
+
+		if (best != index) {
+			moves.swap(index, best);
+			int score = moveScores[index];
+			moveScores[index] = moveScores[best];
+			moveScores[best] = score;
+		}
+
+		return moves.get(index);
+	}
+
+	/**
+	 * Records a move that caused a beta cutoff
+	 * 
+	 * @param move	the move
+	 * @param side	alliance that made the move
+	 * @param depth	remaining depth of the node
+	 * @param ply	ply of the node
+	 * @param index	index at which the move was searched
+	 */
+	public void cutoff(int move, Alliance side, int depth, int ply, int index) {
+		cutoffs++;
+		if (index == 0) {
+			firstMoveCutoffs++;
+			if (scores[ply][0] == TT_MOVE_SCORE)
+				ttMoveCutoffs++;
+		}
+
+		if (PackedMove.isCapture(move) || PackedMove.isPromotion(move))
+			return;
+
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+
+		int[] bySource = history[side.ordinal()][PackedMove.getSource(move)];
+		int destination = PackedMove.getDestination(move);
+		bySource[destination] = Math.min(MAX_HISTORY, bySource[destination] + depth * depth);
+	}
+
+	/**
+	 * Resets the cutoff counters
+	 */
+	public void resetStatistics() {
+		cutoffs = 0;
+		firstMoveCutoffs = 0;
+		ttMoveCutoffs = 0;
+	}
+
+	/**
+	 * @return	share of the cutoffs caused by the first searched move, 0 to 1
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * @param move	capture or promotion
+	 * @return	score of the move, higher for more valuable victims and less
+	 *         valuable attackers
+	 */
+	private static int mvvLva(int move) {
+		int score = -PackedMove.getMovingType(move).getValue();
+		if (PackedMove.isCapture(move))
+			score += PackedMove.getCapturedType(move).getValue() * VICTIM_WEIGHT;
+		if (PackedMove.isPromotion(move))
+			score += PROMOTION_BONUS;
+		return score;
+	}
+
+	// getters
+
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	public long getFirstMoveCutoffs() {
+		return firstMoveCutoffs;
+	}
+
+	public long getTTMoveCutoffs() {
+		return ttMoveCutoffs;
+	}
+
+}
@@ -0,0 +1,46 @@
+package engine.ai;
+
+/**
+ * Controls one search from other threads. Every search has its own control,
+ * so a stop meant for a search that has not started yet cannot be cleared by
+ * it or reach the next search.
+ *
+ */
+final class SearchControl {
+
+	private volatile boolean stopped;
+	private SearchLimits ponderHitLimits;
+
+	/**
+	 * Stops the search, it returns the best move of the last finished
+	 * iteration. A search that has not started yet stops at once.
+	 */
+	void stop() {
+		stopped = true;
+	}
+
+	boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Puts limits on a search that started without them. They are kept here
+	 * until the search takes them, so a search that has not started yet gets
+	 * them too.
+	 *
+	 * @param limits	search limits counted from the start of the search
+	 */
+	synchronized void ponderHit(SearchLimits limits) {
+		ponderHitLimits = limits;
+	}
+
+	/**
+	 * @return	the limits of a ponder hit not taken yet, null if there are none
+	 */
+	synchronized SearchLimits takePonderHitLimits() {
+		SearchLimits limits = ponderHitLimits;
+		ponderHitLimits = null;
+		return limits;
+	}
+
+}
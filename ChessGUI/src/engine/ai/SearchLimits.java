@@ -0,0 +1,92 @@
+package engine.ai;
+
+/**
+ * Defines the limits of a search. The search deepens iteratively until one of
+ * the limits is reached.
+ * 
+ * The soft time limit is checked between iterations: no new iteration is
+ * started once it has passed. The hard time limit and the node limit stop the
+ * search in the middle of an iteration, whose result is then discarded. The
+ * first iteration always completes, so a search always has a move.
+ *
+ */
+public final class SearchLimits {
+
+	public static final int MAX_DEPTH = 64;
+	public static final long NO_LIMIT = Long.MAX_VALUE;
+
+	private final int maxDepth;
+	private final long softTimeMillis;
+	private final long hardTimeMillis;
+	private final long maxNodes;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxDepth	maximum depth in plies
+	 * @param softTimeMillis	time after which no new iteration is started
+	 * @param hardTimeMillis	time after which the search is stopped
+	 * @param maxNodes	number of nodes after which the search is stopped
+	 */
+	public SearchLimits(int maxDepth, long softTimeMillis, long hardTimeMillis, long maxNodes) {
+		if (maxDepth < 1)
+			throw new IllegalArgumentException("Depth must be at least 1: " + maxDepth);
+
+		this.maxDepth = Math.min(maxDepth, MAX_DEPTH);
+		this.softTimeMillis = softTimeMillis;
+		this.hardTimeMillis = Math.max(softTimeMillis, hardTimeMillis);
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * @param depth	depth in plies
+	 * @return	limits of a search to the fixed depth
+	 */
+	public static SearchLimits depth(int depth) {
+		return new SearchLimits(depth, NO_LIMIT, NO_LIMIT, NO_LIMIT);
+	}
+
+	/**
+	 * @param softTimeMillis	time after which no new iteration is started
+	 * @param hardTimeMillis	time after which the search is stopped
+	 * @return	limits of a timed search
+	 */
+	public static SearchLimits time(long softTimeMillis, long hardTimeMillis) {
+		return new SearchLimits(MAX_DEPTH, softTimeMillis, hardTimeMillis, NO_LIMIT);
+	}
+
+	/**
+	 * @param maxNodes	number of nodes
+	 * @return	copy of these limits with the node limit
+	 */
+	public SearchLimits withMaxNodes(long maxNodes) {
+		return new SearchLimits(maxDepth, softTimeMillis, hardTimeMillis, maxNodes);
+	}
+
+	/**
+	 * @param maxDepth	depth in plies
+	 * @return	copy of these limits with the maximum depth
+	 */
+	public SearchLimits withMaxDepth(int maxDepth) {
+		return new SearchLimits(maxDepth, softTimeMillis, hardTimeMillis, maxNodes);
+	}
+
+	// getters
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public long getSoftTimeMillis() {
+		return softTimeMillis;
+	}
+
+	public long getHardTimeMillis() {
+		return hardTimeMillis;
+	}
+
+	public long getMaxNodes() {
+		return maxNodes;
+	}
+
+}
@@ -0,0 +1,15 @@
+package engine.ai;
+
+/**
+ * A listener for the progress of a search
+ *
+ */
+public interface SearchListener {
+
+	/**
+	 * Is called on the searching thread after each finished iteration
+	 * 
+	 * @param report	result of the iteration
+	 */
+	void iterationFinished(SearchReport report);
+}
@@ -0,0 +1,109 @@
+package engine.ai;
+
+import engine.move.PackedMove;
+
+/**
+ * Defines the result of one finished iteration of a search
+ *
+ */
+public final class SearchReport {
+
+	private final int depth;
+	private final int score;
+	private final long nodes;
+	private final long quiescenceNodes;
+	private final long timeMillis;
+	private final int[] principalVariation;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param depth	depth of the iteration
+	 * @param score	score of the best move for the side to move
+	 * @param nodes	nodes searched so far by the main search
+	 * @param quiescenceNodes	nodes searched so far by the quiescence search
+	 * @param timeMillis	time since the search started
+	 * @param principalVariation	best line of play, packed moves starting with the
+	 *                          	best move
+	 */
+	public SearchReport(int depth, int score, long nodes, long quiescenceNodes, long timeMillis,
+			int[] principalVariation) {
+		this.depth = depth;
+		this.score = score;
+		this.nodes = nodes;
+		this.quiescenceNodes = quiescenceNodes;
+		this.timeMillis = timeMillis;
+		this.principalVariation = principalVariation.clone();
+	}
+
+	/**
+	 * @return	nodes per second of the search so far, counting both searches
+	 */
+	public long getNodesPerSecond() {
+		long total = getTotalNodes();
+		return timeMillis == 0 ? total * 1000 : total * 1000 / timeMillis;
+	}
+
+	/**
+	 * @return	nodes of the main and the quiescence search
+	 */
+	public long getTotalNodes() {
+		return nodes + quiescenceNodes;
+	}
+
+	/**
+	 * @return	true if the score is a mate score
+	 */
+	public boolean isMateScore() {
+		return Math.abs(score) > MinMax.MATE - MinMax.MAX_PLY;
+	}
+
+	@Override
+	public String toString() {
+		String s = isMateScore() ? "mate " + (score > 0 ? MinMax.MATE - score : -(MinMax.MATE + score)) + " plies"
+				: "score " + score;
+		return "depth " + depth + " " + s + " nodes " + nodes + " qnodes " + quiescenceNodes + " time " + timeMillis + " ms nps "
+				+ getNodesPerSecond() + " pv " + getPrincipalVariationString();
+	}
+
+	/**
+	 * @return	the principal variation in coordinate notation, separated by spaces
+	 */
+	public String getPrincipalVariationString() {
+		StringBuilder sb = new StringBuilder();
+		for (int move : principalVariation)
+			sb.append(' ').append(PackedMove.toString(move));
+		return sb.toString().trim();
+	}
+
+	// getters
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getQuiescenceNodes() {
+		return quiescenceNodes;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	public int getBestMove() {
+		return principalVariation.length == 0 ? PackedMove.NONE : principalVariation[0];
+	}
+
+	public int[] getPrincipalVariation() {
+		return principalVariation.clone();
+	}
+
+}
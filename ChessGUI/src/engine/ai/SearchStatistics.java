@@ -0,0 +1,203 @@
+package engine.ai;
+
+/**
+ * Defines the work done by one finished search. The searched nodes count all
+ * threads, the table counters the probes of all threads, and the other
+ * counters the main search only.
+ *
+ */
+public final class SearchStatistics {
+
+	private final int depth;
+	private final long nodes;
+	private final long quiescenceNodes;
+	private final long searchedNodes;
+	private final long timeMillis;
+	private final int threads;
+	private final long cutoffs;
+	private final long firstMoveCutoffs;
+	private final long ttMoveCutoffs;
+	private final long tableHits;
+	private final long tableMisses;
+	private final long tableCollisions;
+	private final long deltaPrunes;
+	private final long nullMoveCutoffs;
+	private final long lateMoveReSearches;
+	private final long futilityPrunes;
+	private final long reverseFutilityPrunes;
+	private final long razorPrunes;
+
+	/**
+	 * Constructor, reads the counters of the finished search
+	 *
+	 * @param search	the search
+	 * @param timeMillis	time the search took
+	 */
+	SearchStatistics(MinMax search, long timeMillis) {
+		SearchReport report = search.getLastReport();
+		MoveOrderer orderer = search.getMoveOrderer();
+
+		depth = report == null ? 0 : report.getDepth();
+		nodes = search.getNodes();
+		quiescenceNodes = search.getQuiescenceNodes();
+		searchedNodes = search.getSearchedNodes();
+		this.timeMillis = timeMillis;
+		threads = search.getThreads();
+		cutoffs = orderer.getCutoffs();
+		firstMoveCutoffs = orderer.getFirstMoveCutoffs();
+		ttMoveCutoffs = orderer.getTTMoveCutoffs();
+		tableHits = search.getTableHits();
+		tableMisses = search.getTableMisses();
+		tableCollisions = search.getTableCollisions();
+		deltaPrunes = search.getDeltaPrunes();
+		nullMoveCutoffs = search.getNullMoveCutoffs();
+		lateMoveReSearches = search.getLateMoveReSearches();
+		futilityPrunes = search.getFutilityPrunes();
+		reverseFutilityPrunes = search.getReverseFutilityPrunes();
+		razorPrunes = search.getRazorPrunes();
+	}
+
+	/**
+	 * @return	nodes per second of all threads
+	 */
+	public long getNodesPerSecond() {
+		return timeMillis == 0 ? searchedNodes * 1000 : searchedNodes * 1000 / timeMillis;
+	}
+
+	/**
+	 * @return	effective branching factor of the main search, the number b with
+	 *         b^depth equal to its nodes
+	 */
+	public double getBranchingFactor() {
+		return depth == 0 || nodes == 0 ? 0 : Math.pow(nodes, 1.0 / depth);
+	}
+
+	/**
+	 * @return	share of the cutoffs made by the first move searched
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * @return	share of the cutoffs made by the move from the table
+	 */
+	public double getTTMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) ttMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * @return	share of the table probes that found the position
+	 */
+	public double getTableHitRate() {
+		long probes = tableHits + tableMisses;
+		return probes == 0 ? 0 : (double) tableHits / probes;
+	}
+
+	/**
+	 * @return	share of the table probes that missed on a bucket holding other
+	 *         positions
+	 */
+	public double getTableCollisionRate() {
+		long probes = tableHits + tableMisses;
+		return probes == 0 ? 0 : (double) tableCollisions / probes;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"depth %d nodes %d qnodes %d total %d time %d ms nps %d threads %d ebf %.2f fmc %.3f ttmc %.3f"
+						+ " tt %.3f coll %.3f delta %d null %d lmr %d futility %d rfp %d razor %d",
+				depth, nodes, quiescenceNodes, searchedNodes, timeMillis, getNodesPerSecond(), threads,
+				getBranchingFactor(), getFirstMoveCutoffRate(), getTTMoveCutoffRate(), getTableHitRate(),
+				getTableCollisionRate(), deltaPrunes, nullMoveCutoffs, lateMoveReSearches, futilityPrunes,
+				reverseFutilityPrunes, razorPrunes);
+	}
+
+	// getters
+
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return	nodes of the main search of the main thread
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return	nodes of the quiescence search of the main thread
+	 */
+	public long getQuiescenceNodes() {
+		return quiescenceNodes;
+	}
+
+	/**
+	 * @return	nodes of all threads
+	 */
+	public long getSearchedNodes() {
+		return searchedNodes;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	public long getFirstMoveCutoffs() {
+		return firstMoveCutoffs;
+	}
+
+	/**
+	 * @return	cutoffs of the main search made by the move from the table
+	 */
+	public long getTTMoveCutoffs() {
+		return ttMoveCutoffs;
+	}
+
+	public long getTableHits() {
+		return tableHits;
+	}
+
+	public long getTableMisses() {
+		return tableMisses;
+	}
+
+	public long getTableCollisions() {
+		return tableCollisions;
+	}
+
+	public long getDeltaPrunes() {
+		return deltaPrunes;
+	}
+
+	public long getNullMoveCutoffs() {
+		return nullMoveCutoffs;
+	}
+
+	public long getLateMoveReSearches() {
+		return lateMoveReSearches;
+	}
+
+	public long getFutilityPrunes() {
+		return futilityPrunes;
+	}
+
+	public long getReverseFutilityPrunes() {
+		return reverseFutilityPrunes;
+	}
+
+	public long getRazorPrunes() {
+		return razorPrunes;
+	}
+
+}
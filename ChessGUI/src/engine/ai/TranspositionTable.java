@@ -0,0 +1,179 @@
+package engine.ai;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size transposition table for the search, keyed by the Zobrist key of
+ * the position.
+ * 
+ * The table is split into buckets of two entries. The first entry keeps the
+ * deepest search of the bucket (or any search of an older generation), the
+ * second one is replaced on every store that does not go to the first. Entries
+ * live in two primitive arrays, one for the keys and one for the packed data,
+ * so even a large table is just two objects for the garbage collector.
+ * 
+ * The table can be shared by search threads without locking. The key array
+ * holds the key xor the data word, so an entry torn by two threads writing at
+ * once no longer matches its key and is treated as empty. Probes are counted
+ * by each search thread on its own, the table only holds the entries every
+ * thread reads.
+ *
+ */
+public class TranspositionTable {
+
+	// bound types
+	public static final int EXACT = 0;
+	public static final int LOWER_BOUND = 1;// score is at least the stored score
+	public static final int UPPER_BOUND = 2;// score is at most the stored score
+
+	public static final int NO_MOVE = 0;
+
+	private static final int ENTRY_BYTES = 16;
+	private static final int BUCKET_SIZE = 2;
+
+	// data word layout
+	private static final int SCORE_SHIFT = 16;
+	private static final int DEPTH_SHIFT = 48;
+	private static final int BOUND_SHIFT = 56;
+	private static final int GENERATION_SHIFT = 58;
+	private static final long VALID = 1L << 63;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int bucketMask;
+	private int generation;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param sizeMb	size of the table in megabytes, rounded down to a power of
+	 *                	two number of buckets
+	 */
+	public TranspositionTable(int sizeMb) {
+		long buckets = Math.max(1, (long) sizeMb * 1024 * 1024 / (ENTRY_BYTES * BUCKET_SIZE));
+		int bucketCount = Integer.highestOneBit((int) Math.min(buckets, 1 << 29));
+
+		keys = new long[bucketCount * BUCKET_SIZE];
+		data = new long[bucketCount * BUCKET_SIZE];
+		bucketMask = bucketCount - 1;
+	}
+
+	/**
+	 * Looks up the position
+	 * 
+	 * @param key	zobrist key
+	 * 
+	 * @return	data word of the entry, 0 if the position is not in the table
+	 */
+	public long probe(long key) {
+		int index = indexOf(key);
+
+		for (int i = index; i < index + BUCKET_SIZE; i++) {
+			long entry = data[i];
+			if (entry != 0 && (keys[i] ^ entry) == key)
+				return entry;
+		}
+		return 0;
+	}
+
+	/**
+	 * @param key	zobrist key
+	 * 
+	 * @return	true if the bucket of the key holds any position, after a miss
+	 *         other positions
+	 */
+	public boolean isBucketUsed(long key) {
+		int index = indexOf(key);
+		return data[index] != 0 || data[index + 1] != 0;
+	}
+
+	/**
+	 * Stores the result of a search. The score must depend on the position
+	 * alone, as it is reused for every path to the position, so the search
+	 * scores its leaves with {@link MoveEvaluator#evaluate} and never with a
+	 * rating of the move that led to them.
+	 * 
+	 * @param key	zobrist key
+	 * @param depth	searched depth
+	 * @param bound	bound type of the score
+	 * @param score	score
+	 * @param move	best move, {@link #NO_MOVE} if unknown
+	 */
+	public void store(long key, int depth, int bound, int score, int move) {
+		int index = indexOf(key);
+		long deepest = data[index];
+
+		// keep the move of an earlier search if this one has none
+		if (move == NO_MOVE) {
+			for (int i = index; i < index + BUCKET_SIZE; i++) {
+				long old = data[i];
+				if (old != 0 && (keys[i] ^ old) == key)
+					move = getMove(old);
+			}
+		}
+
+		long entry = VALID | ((long) generation << GENERATION_SHIFT) | ((long) bound << BOUND_SHIFT)
+				| ((long) depth << DEPTH_SHIFT) | ((score & 0xFFFFFFFFL) << SCORE_SHIFT) | (move & 0xFFFF);
+
+		if (deepest == 0 || (keys[index] ^ deepest) == key || depth >= getDepth(deepest)
+				|| getGeneration(deepest) != generation) {
+			keys[index] = key ^ entry;
+			data[index] = entry;
+		} else {
+			keys[index + 1] = key ^ entry;
+			data[index + 1] = entry;
+		}
+	}
+
+	/**
+	 * Starts a new search generation, entries of older generations are
+	 * replaced first
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & 0x1F;
+	}
+
+	/**
+	 * Empties the table
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(data, 0);
+	}
+
+	// data word accessors
+
+	public static int getMove(long entry) {
+		return (int) (entry & 0xFFFF);
+	}
+
+	public static int getScore(long entry) {
+		return (int) (entry >>> SCORE_SHIFT);
+	}
+
+	public static int getDepth(long entry) {
+		return (int) ((entry >>> DEPTH_SHIFT) & 0xFF);
+	}
+
+	public static int getBound(long entry) {
+		return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+	}
+
+	private static int getGeneration(long entry) {
+		return (int) ((entry >>> GENERATION_SHIFT) & 0x1F);
+	}
+
+	private int indexOf(long key) {
+		return (int) (key & bucketMask) * BUCKET_SIZE;
+	}
+
+	// getters
+
+	/**
+	 * @return	number of entries
+	 */
+	public int getCapacity() {
+		return keys.length;
+	}
+
+}
@@ -0,0 +1,113 @@
+package engine.board;
+
+import engine.piece.Alliance;
+
+/**
+ * Precomputed attack tables for the pieces that jump to fixed offsets: knight,
+ * king and pawn captures. Also holds the squares between and through two
+ * aligned squares, used for pins and check blocking. The tables are filled once
+ * when the class is loaded.
+ *
+ */
+public final class AttackTables {
+
+	private static final int[][] KNIGHT_OFFSETS = { { 2, -1 }, { 1, -2 }, { 2, 1 }, { 1, 2 }, { -2, -1 }, { -1, -2 },
+			{ -2, 1 }, { -1, 2 } };
+	private static final int[][] KING_OFFSETS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 }, { 0, -1 }, { 0, 1 },
+			{ -1, 0 }, { 1, 0 } };
+	private static final int[][] WHITE_PAWN_OFFSETS = { { -1, 1 }, { -1, -1 } };// white pawns attack upwards
+	private static final int[][] BLACK_PAWN_OFFSETS = { { 1, 1 }, { 1, -1 } };// black pawns attack downwards
+
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+	private static final long[] KING_ATTACKS = new long[64];
+	private static final long[][] PAWN_ATTACKS = new long[Alliance.values().length][64];
+	private static final long[][] BETWEEN = new long[64][64];
+	private static final long[][] LINE = new long[64][64];
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			KNIGHT_ATTACKS[square] = offsetAttacks(square, KNIGHT_OFFSETS);
+			KING_ATTACKS[square] = offsetAttacks(square, KING_OFFSETS);
+			PAWN_ATTACKS[Alliance.WHITE.ordinal()][square] = offsetAttacks(square, WHITE_PAWN_OFFSETS);
+			PAWN_ATTACKS[Alliance.BLACK.ordinal()][square] = offsetAttacks(square, BLACK_PAWN_OFFSETS);
+		}
+
+		for (int a = 0; a < 64; a++)
+			for (int b = 0; b < 64; b++) {
+				long ends = BitBoard.bit(a) | BitBoard.bit(b);
+
+				if (a != b && BitBoard.isSet(MagicBitboards.rookAttacks(a, 0), b)) {
+					BETWEEN[a][b] = MagicBitboards.rookAttacks(a, BitBoard.bit(b))
+							& MagicBitboards.rookAttacks(b, BitBoard.bit(a));
+					LINE[a][b] = (MagicBitboards.rookAttacks(a, 0) & MagicBitboards.rookAttacks(b, 0)) | ends;
+				} else if (a != b && BitBoard.isSet(MagicBitboards.bishopAttacks(a, 0), b)) {
+					BETWEEN[a][b] = MagicBitboards.bishopAttacks(a, BitBoard.bit(b))
+							& MagicBitboards.bishopAttacks(b, BitBoard.bit(a));
+					LINE[a][b] = (MagicBitboards.bishopAttacks(a, 0) & MagicBitboards.bishopAttacks(b, 0)) | ends;
+				}
+			}
+	}
+
+	private AttackTables() {
+
+	}
+
+	/**
+	 * @param square	square of the knight
+	 * @return	squares attacked by a knight
+	 */
+	public static long knightAttacks(int square) {
+		return KNIGHT_ATTACKS[square];
+	}
+
+	/**
+	 * @param square	square of the king
+	 * @return	squares attacked by a king
+	 */
+	public static long kingAttacks(int square) {
+		return KING_ATTACKS[square];
+	}
+
+	/**
+	 * @param alliance	alliance of the pawn
+	 * @param square	square of the pawn
+	 * @return	squares attacked diagonally by the pawn
+	 */
+	public static long pawnAttacks(Alliance alliance, int square) {
+		return PAWN_ATTACKS[alliance.ordinal()][square];
+	}
+
+	/**
+	 * @param a	square
+	 * @param b	square
+	 * @return	squares strictly between a and b, empty if they are not on a
+	 *         common row, column or diagonal
+	 */
+	public static long between(int a, int b) {
+		return BETWEEN[a][b];
+	}
+
+	/**
+	 * @param a	square
+	 * @param b	square
+	 * @return	the whole row, column or diagonal through a and b, empty if they
+	 *         are not aligned
+	 */
+	public static long line(int a, int b) {
+		return LINE[a][b];
+	}
+
+	// private methods
+
+	private static long offsetAttacks(int square, int[][] offsets) {
+		long attacks = 0;
+		for (int[] offset : offsets) {
+			int row = BitBoard.row(square) + offset[0];
+			int col = BitBoard.col(square) + offset[1];
+			if (row >= 0 && row < Board.SIZE && col >= 0 && col < Board.SIZE)
+				attacks |= BitBoard.bit(BitBoard.square(row, col));
+		}
+		return attacks;
+	}
+
+}
@@ -0,0 +1,69 @@
+package engine.board;
+
+/**
+ * Helper functions for 64 bit board masks.
+ * 
+ * A square is numbered row * 8 + col, so bit 0 is the top left tile (row 0, col
+ * 0) and bit 63 is the bottom right tile.
+ *
+ */
+public final class BitBoard {
+
+	public static final long EMPTY = 0L;
+	public static final long ALL = ~0L;
+
+	private BitBoard() {
+
+	}
+
+	/**
+	 * @param row row
+	 * @param col col
+	 * @return square index of the tile
+	 */
+	public static int square(int row, int col) {
+		return row * Board.SIZE + col;
+	}
+
+	public static int row(int square) {
+		return square >>> 3;
+	}
+
+	public static int col(int square) {
+		return square & 7;
+	}
+
+	/**
+	 * @param square square
+	 * @return mask with only the square bit set
+	 */
+	public static long bit(int square) {
+		return 1L << square;
+	}
+
+	/**
+	 * @param mask  mask
+	 * @param square square
+	 * @return true if the square bit is set in mask
+	 */
+	public static boolean isSet(long mask, int square) {
+		return (mask & (1L << square)) != 0;
+	}
+
+	/**
+	 * @param mask non empty mask
+	 * @return lowest set square of the mask
+	 */
+	public static int first(long mask) {
+		return Long.numberOfTrailingZeros(mask);
+	}
+
+	/**
+	 * @param mask mask
+	 * @return number of set squares
+	 */
+	public static int count(long mask) {
+		return Long.bitCount(mask);
+	}
+
+}
@@ -1,19 +1,43 @@
 package engine.board;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
 
 import engine.move.Move;
+import engine.move.MoveList;
+import engine.move.PackedMove;
 import engine.piece.Alliance;
 import engine.piece.Bishop;
 import engine.piece.King;
 import engine.piece.Knight;
 import engine.piece.Pawn;
 import engine.piece.Piece;
+import engine.piece.PieceType;
 import engine.piece.Queen;
 import engine.piece.Rook;
 
 /**
  * Defines and creates the board of the game 
+ * 
+ * Besides the tiles, the board keeps one 64 bit occupancy mask per piece type
+ * and alliance (see {@link BitBoard} for the square numbering). The masks are
+ * updated by every method that places or removes a piece, so they always
+ * describe the same position as the tiles. The same methods keep a list of
+ * the pieces of each alliance and its material, so neither has to be collected
+ * from the tiles.
+ * 
+ * The squares attacked by each alliance are computed on demand and kept until
+ * the position changes, see {@link #isSquareAttacked(int, Alliance)}.
+ * 
+ * The board also keeps the side to move, the castling rights and a Zobrist key
+ * of the position which is updated incrementally. When assertions are enabled
+ * (-ea) every update checks the key against a full recomputation.
+ * 
+ * Moves can be made on the board either through the {@link Move} classes or,
+ * without creating objects, as packed moves with {@link #makeMove(int)} and
+ * {@link #unmakeMove(int)}.
  *
  */
 public class Board {
@@ -22,15 +46,151 @@ public class Board {
 	public static final int WHITE_HOME_ROW = SIZE - 1;
 	public static final int BLACK_HOME_ROW = 0;
 
+	// castling rights, as indices into the castling rights mask
+	public static final int WHITE_KINGSIDE = 0;
+	public static final int WHITE_QUEENSIDE = 1;
+	public static final int BLACK_KINGSIDE = 2;
+	public static final int BLACK_QUEENSIDE = 3;
+
+	// number of packed moves that can be made before they are unmade
+	public static final int MAX_MADE_MOVES = 512;
+
+	// start position of the game, black on top. Bishops and knights are placed
+	// the other way around than in standard chess
+	public static final String START_FEN = "rbnqknbr/pppppppp/8/8/8/8/PPPPPPPP/RBNQKNBR w KQkq - 0 1";
+
+	private static final String FEN_PIECES = "pnbrqk";
+	private static final String FEN_CASTLING = "KQkq";// in the order of the castling rights
+
 	private final Tile[][] tiles;
+	private final long[][] pieceBitboards;// [alliance][piece type]
+	private final long[] allianceBitboards;// [alliance]
+	private long occupiedBitboard;
+	private final Piece[][] pieceLists;// [alliance][index], unordered
+	private final int[][] pieceListSquares;// [alliance][index]
+	private final int[] pieceCounts;// [alliance]
+	private final int[] pieceListIndices = new int[SIZE * SIZE];// [square]
+	private final List<Piece>[] activePieces;// [alliance], read-only views
+	private final int[] material;// [alliance]
 	private King whiteKing, blackKing;
+	private Alliance sideToMove;
+	private int castlingRights;// mask of (1 << castling right)
+	private long zobristKey;
+
+	// legality masks of legalityAlliance, null when the position has changed
+	private Alliance legalityAlliance;
+	private long checkers;
+	private long checkMask;
+	private long pinned;
+	private final long[] pinRays = new long[SIZE * SIZE];
+
+	// squares attacked by each alliance, valid while its bit is set in validAttackMaps
+	private final long[] attackMaps = new long[Alliance.values().length];
+	private int validAttackMaps;
+
+	// undo information of the packed moves made, indexed by madeMoves
+	private final Piece[] movedPieces = new Piece[MAX_MADE_MOVES];
+	private final Piece[] capturedPieces = new Piece[MAX_MADE_MOVES];
+	private final boolean[] hadMoved = new boolean[MAX_MADE_MOVES];
+	private int madeMoves;
+
+	private final MoveList scratchMoves = new MoveList();
 
 	/**
-	 * Constructor
+	 * Constructor, creates the start position of the game
 	 */
 	public Board() {
+		this(START_FEN);
+	}
+
+	/**
+	 * Creates the position of a FEN string. The en passant field and the move
+	 * counters are ignored, the game has no en passant. Pawns outside their
+	 * start row and kings and rooks without castling rights are marked as
+	 * moved.
+	 * 
+	 * @param fen	position in Forsyth-Edwards notation
+	 * 
+	 * @throws IllegalArgumentException	if the FEN string is not valid
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Board(String fen) {
+		int alliances = Alliance.values().length;
 		tiles = new Tile[SIZE][SIZE];
-		initStandardBoard();
+		pieceBitboards = new long[alliances][PieceType.COUNT];
+		allianceBitboards = new long[alliances];
+		pieceLists = new Piece[alliances][SIZE * SIZE];
+		pieceListSquares = new int[alliances][SIZE * SIZE];
+		pieceCounts = new int[alliances];
+		material = new int[alliances];
+		activePieces = new List[alliances];
+		for (Alliance alliance : Alliance.values())
+			activePieces[alliance.ordinal()] = new ActivePieces(alliance.ordinal());
+
+		for (int i = 0; i < SIZE; i++)
+			for (int j = 0; j < SIZE; j++)
+				tiles[i][j] = new Tile();
+
+		String[] fields = fen.trim().split("\\s+");
+		placePieces(fields[0]);
+		if (whiteKing == null || blackKing == null)
+			throw new IllegalArgumentException("Both kings must be on the board: " + fen);
+
+		String castling = fields.length > 2 ? fields[2] : "-";
+		setCastlingFlags(whiteKing, castling, WHITE_KINGSIDE, WHITE_QUEENSIDE);
+		setCastlingFlags(blackKing, castling, BLACK_KINGSIDE, BLACK_QUEENSIDE);
+
+		sideToMove = fields.length > 1 && fields[1].equals("b") ? Alliance.BLACK : Alliance.WHITE;
+		castlingRights = computeCastlingRights();
+		zobristKey = computeZobristKey();
+	}
+
+	/**
+	 * Creates an independent board with the same position. Search threads work
+	 * on copies, as a board must only be used by one thread.
+	 * 
+	 * @return	copy of the board
+	 */
+	public Board copy() {
+		return new Board(toFen());
+	}
+
+	/**
+	 * @return	the position in Forsyth-Edwards notation
+	 */
+	public String toFen() {
+		StringBuilder fen = new StringBuilder();
+
+		for (int row = 0; row < SIZE; row++) {
+			int empty = 0;
+			for (int col = 0; col < SIZE; col++) {
+				Piece p = tiles[row][col].getPiece();
+				if (p == null) {
+					empty++;
+					continue;
+				}
+
+				if (empty > 0)
+					fen.append(empty);
+				empty = 0;
+
+				char c = FEN_PIECES.charAt(p.getType().ordinal());
+				fen.append(p.getAlliance() == Alliance.WHITE ? Character.toUpperCase(c) : c);
+			}
+			if (empty > 0)
+				fen.append(empty);
+			if (row < SIZE - 1)
+				fen.append('/');
+		}
+
+		fen.append(sideToMove == Alliance.WHITE ? " w " : " b ");
+		for (int right = WHITE_KINGSIDE; right <= BLACK_QUEENSIDE; right++)
+			if ((castlingRights & (1 << right)) != 0)
+				fen.append(FEN_CASTLING.charAt(right));
+		if (castlingRights == 0)
+			fen.append('-');
+
+		return fen.append(" - 0 1").toString();
 	}
 
 	/**
@@ -42,55 +202,253 @@ public class Board {
 	public void movePiece(Piece p, Position destination) {
 		Position src = p.getPosition();
 
-		tiles[src.row][src.col].setPiece(null);
-		tiles[destination.row][destination.col].setPiece(p);
+		removePiece(src.square);
+		removePiece(destination.square);
 		p.setPosition(destination);
+		placePiece(p);
 	}
 
 	/**
+	 * Makes a packed move of the side to move. Must be undone with
+	 * {@link #unmakeMove(int)} in reverse order.
 	 * 
-	 * @param p	position
+	 * @param move	legal packed move
+	 */
+	public void makeMove(int move) {
+		int source = PackedMove.getSource(move);
+		int destination = PackedMove.getDestination(move);
+		Piece piece = getPiece(source);
+
+		movedPieces[madeMoves] = piece;
+		capturedPieces[madeMoves] = getPiece(destination);
+		hadMoved[madeMoves] = piece.hasMoved();
+		madeMoves++;
+
+		removePiece(destination);
+		removePiece(source);
+
+		Piece placed = piece;
+		if (PackedMove.isPromotion(move))
+			placed = ((Pawn) piece).getPromotionPiece(PackedMove.getPromotionType(move));
+
+		placed.setPosition(Position.of(destination));
+		placePiece(placed);
+		piece.moved();
+
+		// castling rooks have not moved before, so undo only resets their flag
+		if (PackedMove.isCastling(move)) {
+			int direction = PackedMove.getFlags(move) == PackedMove.KING_CASTLE ? 1 : -1;
+			Piece rook = getPiece(BitBoard.square(BitBoard.row(source), direction > 0 ? SIZE - 1 : 0));
+
+			removePiece(rook.getSquare());
+			rook.setPosition(Position.of(source + direction));
+			placePiece(rook);
+			rook.moved();
+		}
+
+		updateState(piece.getAlliance().getOpposing());
+	}
+
+	/**
+	 * Undoes the last packed move made
 	 * 
-	 * @return	true if tile position is valid
+	 * @param move	the move
+	 */
+	public void unmakeMove(int move) {
+		madeMoves--;
+		int source = PackedMove.getSource(move);
+		int destination = PackedMove.getDestination(move);
+		Piece piece = movedPieces[madeMoves];
+		Piece captured = capturedPieces[madeMoves];
+
+		removePiece(destination);
+		piece.setPosition(Position.of(source));
+		placePiece(piece);
+		piece.setHasMoved(hadMoved[madeMoves]);
+
+		// the captured piece still has the destination as its position
+		if (captured != null)
+			placePiece(captured);
+
+		if (PackedMove.isCastling(move)) {
+			int direction = PackedMove.getFlags(move) == PackedMove.KING_CASTLE ? 1 : -1;
+			Piece rook = getPiece(source + direction);
+
+			removePiece(source + direction);
+			rook.setPosition(Position.of(BitBoard.row(source), direction > 0 ? SIZE - 1 : 0));
+			placePiece(rook);
+			rook.setHasMoved(false);
+		}
+
+		movedPieces[madeMoves] = null;
+		capturedPieces[madeMoves] = null;
+		updateState(piece.getAlliance());
+	}
+
+	/**
+	 * Passes the turn to the other side without moving a piece, as the null
+	 * move of the search. Must not be made while the side to move is in check.
+	 */
+	public void makeNullMove() {
+		updateState(sideToMove.getOpposing());
+	}
+
+	/**
+	 * Undoes the null move, giving the turn back
 	 */
-	public boolean isValidTile(Position p) {
-		return p.row >= 0 && p.row < SIZE && p.col >= 0 && p.col < SIZE;
+	public void unmakeNullMove() {
+		updateState(sideToMove.getOpposing());
 	}
 
 	/**
-	 * Checks if the move puts the king in a check
+	 * Sets the piece on the tile, replacing any piece that was there
 	 * 
-	 * @param alliance	alliance
-	 * @param move	move
+	 * @param position	position
+	 * @param p	piece to set, null to empty the tile
+	 */
+	public void setPiece(Position position, Piece p) {
+		removePiece(position.square);
+		if (p != null) {
+			p.setPosition(position);
+			placePiece(p);
+		}
+
+		updateCastlingRights();
+		assert zobristKey == computeZobristKey() : "zobrist key out of sync";
+	}
+
+	/**
+	 * Updates the castling rights and the side to move. Is called at the end of
+	 * every move execute and undo, once the moved flags of the pieces are set.
 	 * 
-	 * @return	true if king is placed in check
+	 * @param sideToMove	alliance to move next
 	 */
-	public boolean isCheckMoveFor(Alliance alliance, Move move) {
-		boolean isCheckMove;
+	public void updateState(Alliance sideToMove) {
+		updateCastlingRights();
 
-		move.execute(this);
-		isCheckMove = isKingInCheck(alliance);
-		move.undo(this);
+		if (this.sideToMove != sideToMove) {
+			zobristKey ^= Zobrist.sideKey();
+			this.sideToMove = sideToMove;
+		}
 
-		return isCheckMove;
+		assert zobristKey == computeZobristKey() : "zobrist key out of sync";
 	}
 
 	/**
-	 * Checks if the position is a home rank tile for the alliance
-	 * 
-	 * @param p	position
-	 * @param alliance	alliance
+	 * Computes the Zobrist key of the position from scratch
 	 * 
-	 * @return	true if it is a home rank tile
+	 * @return	zobrist key
 	 */
-	public boolean isHomeRankTile(Position p, Alliance alliance) {
-		return alliance == Alliance.WHITE ? p.row == WHITE_HOME_ROW : p.row == BLACK_HOME_ROW;
+	public long computeZobristKey() {
+		long key = 0;
+
+		for (long mask = occupiedBitboard; mask != 0; mask &= mask - 1) {
+			int square = BitBoard.first(mask);
+			Piece p = getPiece(square);
+			key ^= Zobrist.pieceKey(p.getAlliance(), p.getType(), square);
+		}
+
+		for (int right = WHITE_KINGSIDE; right <= BLACK_QUEENSIDE; right++)
+			if ((castlingRights & (1 << right)) != 0)
+				key ^= Zobrist.castlingKey(right);
+
+		if (sideToMove == Alliance.WHITE)
+			key ^= Zobrist.sideKey();
+
+		return key;
 	}
 
 	public boolean isKingInCheck(Alliance alliance) {
-		King king = alliance == whiteKing.getAlliance() ? whiteKing : blackKing;
-		return king.isInCheck(this);
+		return isSquareAttacked(getKing(alliance).getSquare(), alliance.getOpposing());
+	}
+
+	/**
+	 * Checks if a piece of the alliance attacks the square. Sliding attacks
+	 * pass through the enemy king, so a king cannot escape a check by stepping
+	 * back along the line of the checking piece.
+	 * 
+	 * @param square	square
+	 * @param by	attacking alliance
+	 * 
+	 * @return	true if the square is attacked
+	 */
+	public boolean isSquareAttacked(int square, Alliance by) {
+		return BitBoard.isSet(getAttackedSquares(by), square);
+	}
+
+	/**
+	 * Gets the squares attacked by the alliance, see
+	 * {@link #isSquareAttacked(int, Alliance)}. The map is computed once per
+	 * position.
+	 * 
+	 * @param by	attacking alliance
+	 * 
+	 * @return	mask of the attacked squares
+	 */
+	public long getAttackedSquares(Alliance by) {
+		int alliance = by.ordinal();
+		if ((validAttackMaps & (1 << alliance)) == 0) {
+			attackMaps[alliance] = computeAttackedSquares(by);
+			validAttackMaps |= 1 << alliance;
+		}
+
+		return attackMaps[alliance];
+	}
+
+	/**
+	 * Gets the pieces of both alliances that attack the square
+	 * 
+	 * @param square	square
+	 * 
+	 * @return	mask of the attacking pieces
+	 */
+	public long attackersOf(int square) {
+		return attackersOf(square, occupiedBitboard);
+	}
+
+	/**
+	 * Gets the squares a piece other than the king may move to without leaving
+	 * its king in check. A pinned piece must stay on the line of its pin, and if
+	 * the king is in check a move must capture the checker or block the check.
+	 * The masks are computed once per position.
+	 * 
+	 * @param alliance	alliance of the piece
+	 * @param square	square of the piece
+	 * 
+	 * @return	mask of the allowed destination squares
+	 */
+	public long getLegalMask(Alliance alliance, int square) {
+		if (legalityAlliance != alliance)
+			computeLegalityMasks(alliance);
+
+		long mask = checkMask;
+		if (BitBoard.isSet(pinned, square))
+			mask &= pinRays[square];
 
+		return mask;
+	}
+
+	/**
+	 * Gets the pieces of both alliances that attack the square
+	 * 
+	 * @param square	square
+	 * @param occupancy	occupied squares the sliding attacks stop at
+	 * 
+	 * @return	mask of the attacking pieces
+	 */
+	public long attackersOf(int square, long occupancy) {
+		long whitePawns = getBitboard(Alliance.WHITE, PieceType.PAWN);
+		long blackPawns = getBitboard(Alliance.BLACK, PieceType.PAWN);
+		long rooksAndQueens = getBitboard(PieceType.ROOK) | getBitboard(PieceType.QUEEN);
+		long bishopsAndQueens = getBitboard(PieceType.BISHOP) | getBitboard(PieceType.QUEEN);
+
+		// a pawn attacks the square if a pawn of the other alliance on the square would attack it
+		return (AttackTables.pawnAttacks(Alliance.BLACK, square) & whitePawns)
+				| (AttackTables.pawnAttacks(Alliance.WHITE, square) & blackPawns)
+				| (AttackTables.knightAttacks(square) & getBitboard(PieceType.KNIGHT))
+				| (AttackTables.kingAttacks(square) & getBitboard(PieceType.KING))
+				| (MagicBitboards.rookAttacks(square, occupancy) & rooksAndQueens)
+				| (MagicBitboards.bishopAttacks(square, occupancy) & bishopsAndQueens);
 	}
 
 	/**
@@ -102,13 +460,17 @@ public class Board {
 	 * @return	true if it is in stalemate
 	 */
 	public boolean isStalemate(Alliance alliance) {
-		ArrayList<Piece> pieces = getActivePieces(alliance);
-
-		for (Piece piece : pieces)
-			if (piece.getPossibleMoves(this).size() != 0)
-				return false;
+		return countLegalMoves(alliance) == 0;
+	}
 
-		return true;
+	/**
+	 * @param alliance	alliance
+	 * 
+	 * @return	number of legal moves of the alliance
+	 */
+	public int countLegalMoves(Alliance alliance) {
+		MoveGenerator.generateMoves(this, alliance, scratchMoves);
+		return scratchMoves.size();
 	}
 
 	/**
@@ -119,67 +481,298 @@ public class Board {
 	 * @return	true if it is checkmated
 	 */
 	public boolean isCheckMate(Alliance alliance) {
-		King king = alliance == whiteKing.getAlliance() ? whiteKing : blackKing;
-		return king.isInCheck(this) && isStalemate(alliance);
+		return isKingInCheck(alliance) && isStalemate(alliance);
 	}
 	
 
 	// private methods
 
 	/**
-	 * Initializes a standard board with black pieces on top.
+	 * Puts the piece on the empty tile of its position and sets its bits
+	 * 
+	 * @param p	piece
 	 */
-	private void initStandardBoard() {
-		for (int i = 0; i < SIZE; i++)
-			for (int j = 0; j < SIZE; j++)
-				tiles[i][j] = new Tile();
+	private void placePiece(Piece p) {
+		Position position = p.getPosition();
+		long bit = BitBoard.bit(position.square);
+		int alliance = p.getAlliance().ordinal();
 
-		// black pieces
-		blackKing = new King(new Position(0, 4), Alliance.BLACK);
-		tiles[0][0].setPiece(new Rook(new Position(0, 0), Alliance.BLACK));
-		tiles[0][1].setPiece(new Bishop(new Position(0, 1), Alliance.BLACK));
-		tiles[0][2].setPiece(new Knight(new Position(0, 2), Alliance.BLACK));
-		tiles[0][3].setPiece(new Queen(new Position(0, 3), Alliance.BLACK));
-		tiles[0][4].setPiece(blackKing);
-		tiles[0][5].setPiece(new Knight(new Position(0, 5), Alliance.BLACK));
-		tiles[0][6].setPiece(new Bishop(new Position(0, 6), Alliance.BLACK));
-		tiles[0][7].setPiece(new Rook(new Position(0, 7), Alliance.BLACK));
-		for (int i = 0; i < SIZE; i++)
-			tiles[1][i].setPiece(new Pawn(new Position(1, i), Alliance.BLACK));
-
-		// white pieces
-		whiteKing = new King(new Position(7, 4), Alliance.WHITE);
-		tiles[7][0].setPiece(new Rook(new Position(7, 0), Alliance.WHITE));
-		tiles[7][1].setPiece(new Bishop(new Position(7, 1), Alliance.WHITE));
-		tiles[7][2].setPiece(new Knight(new Position(7, 2), Alliance.WHITE));
-		tiles[7][3].setPiece(new Queen(new Position(7, 3), Alliance.WHITE));
-		tiles[7][4].setPiece(whiteKing);
-		tiles[7][5].setPiece(new Knight(new Position(7, 5), Alliance.WHITE));
-		tiles[7][6].setPiece(new Bishop(new Position(7, 6), Alliance.WHITE));
-		tiles[7][7].setPiece(new Rook(new Position(7, 7), Alliance.WHITE));
-		for (int i = 0; i < SIZE; i++)
-			tiles[6][i].setPiece(new Pawn(new Position(6, i), Alliance.WHITE));
+		tiles[position.row][position.col].setPiece(p);
+		pieceBitboards[alliance][p.getType().ordinal()] |= bit;
+		allianceBitboards[alliance] |= bit;
+		occupiedBitboard |= bit;
+		zobristKey ^= Zobrist.pieceKey(p.getAlliance(), p.getType(), position.square);
+		legalityAlliance = null;
+		validAttackMaps = 0;
+
+		int index = pieceCounts[alliance]++;
+		pieceLists[alliance][index] = p;
+		pieceListSquares[alliance][index] = position.square;
+		pieceListIndices[position.square] = index;
+		material[alliance] += p.getType().getValue();
 	}
 
-	// getters
+	/**
+	 * Empties the tile and clears the bits of the piece on it
+	 * 
+	 * @param square	square
+	 */
+	private void removePiece(int square) {
+		Tile tile = tiles[BitBoard.row(square)][BitBoard.col(square)];
+		Piece p = tile.getPiece();
+		if (p == null)
+			return;
+
+		long bit = BitBoard.bit(square);
+		int alliance = p.getAlliance().ordinal();
+
+		tile.setPiece(null);
+		pieceBitboards[alliance][p.getType().ordinal()] &= ~bit;
+		allianceBitboards[alliance] &= ~bit;
+		occupiedBitboard &= ~bit;
+		zobristKey ^= Zobrist.pieceKey(p.getAlliance(), p.getType(), square);
+		legalityAlliance = null;
+		validAttackMaps = 0;
+
+		// the last piece of the list takes the place of the removed one
+		int index = pieceListIndices[square];
+		int last = --pieceCounts[alliance];
+		int lastSquare = pieceListSquares[alliance][last];
+		pieceLists[alliance][index] = pieceLists[alliance][last];
+		pieceListSquares[alliance][index] = lastSquare;
+		pieceListIndices[lastSquare] = index;
+		pieceLists[alliance][last] = null;
+		material[alliance] -= p.getType().getValue();
+	}
+
+	/**
+	 * Computes the squares attacked by the alliance, with the enemy king taken
+	 * off the board
+	 * 
+	 * @param by	attacking alliance
+	 * 
+	 * @return	mask of the attacked squares
+	 */
+	private long computeAttackedSquares(Alliance by) {
+		long occupancy = occupiedBitboard & ~getBitboard(by.getOpposing(), PieceType.KING);
+		long[] pieces = pieceBitboards[by.ordinal()];
+		long attacks = 0;
+
+		for (long mask = pieces[PieceType.PAWN.ordinal()]; mask != 0; mask &= mask - 1)
+			attacks |= AttackTables.pawnAttacks(by, BitBoard.first(mask));
+		for (long mask = pieces[PieceType.KNIGHT.ordinal()]; mask != 0; mask &= mask - 1)
+			attacks |= AttackTables.knightAttacks(BitBoard.first(mask));
+		for (long mask = pieces[PieceType.BISHOP.ordinal()] | pieces[PieceType.QUEEN.ordinal()]; mask != 0; mask &= mask - 1)
+			attacks |= MagicBitboards.bishopAttacks(BitBoard.first(mask), occupancy);
+		for (long mask = pieces[PieceType.ROOK.ordinal()] | pieces[PieceType.QUEEN.ordinal()]; mask != 0; mask &= mask - 1)
+			attacks |= MagicBitboards.rookAttacks(BitBoard.first(mask), occupancy);
+		for (long mask = pieces[PieceType.KING.ordinal()]; mask != 0; mask &= mask - 1)
+			attacks |= AttackTables.kingAttacks(BitBoard.first(mask));
+
+		return attacks;
+	}
 
 	/**
-	 * Gets all the active pieces for the alliance
+	 * Computes the check and pin masks of the alliance
 	 * 
 	 * @param alliance	alliance
-	 * @return	all active pieces
 	 */
-	public ArrayList<Piece> getActivePieces(Alliance alliance) {
-		ArrayList<Piece> pieces = new ArrayList<Piece>();
+	private void computeLegalityMasks(Alliance alliance) {
+		int kingSquare = getKing(alliance).getSquare();
+		Alliance enemy = alliance.getOpposing();
+		long enemies = getOccupancy(enemy);
+		long queens = getBitboard(enemy, PieceType.QUEEN);
 
-		for (int i = 0; i < SIZE; i++)
-			for (int j = 0; j < SIZE; j++) {
-				Position p = new Position(i, j);
-				if (!isEmpty(p) && getPiece(p).getAlliance() == alliance)
-					pieces.add(getPiece(p));
+		// a single check can be captured or blocked, a double check only evaded by the king
+		checkers = attackersOf(kingSquare) & enemies;
+		if (checkers == 0)
+			checkMask = BitBoard.ALL;
+		else if (BitBoard.count(checkers) == 1)
+			checkMask = checkers | AttackTables.between(kingSquare, BitBoard.first(checkers));
+		else
+			checkMask = BitBoard.EMPTY;
+
+		// enemy sliders that would attack the king through exactly one own piece pin it
+		pinned = 0;
+		long snipers = (MagicBitboards.rookAttacks(kingSquare, enemies)
+				& (getBitboard(enemy, PieceType.ROOK) | queens))
+				| (MagicBitboards.bishopAttacks(kingSquare, enemies) & (getBitboard(enemy, PieceType.BISHOP) | queens));
+		for (; snipers != 0; snipers &= snipers - 1) {
+			int sniper = BitBoard.first(snipers);
+			long blockers = AttackTables.between(kingSquare, sniper) & occupiedBitboard;
+
+			if (BitBoard.count(blockers) == 1 && (blockers & getOccupancy(alliance)) != 0) {
+				pinned |= blockers;
+				pinRays[BitBoard.first(blockers)] = AttackTables.line(kingSquare, sniper);
 			}
+		}
+
+		legalityAlliance = alliance;
+	}
 
-		return pieces;
+	/**
+	 * Recomputes the castling rights and xors the changed ones into the key
+	 */
+	private void updateCastlingRights() {
+		int rights = computeCastlingRights();
+		int changed = rights ^ castlingRights;
+
+		for (int right = WHITE_KINGSIDE; right <= BLACK_QUEENSIDE; right++)
+			if ((changed & (1 << right)) != 0)
+				zobristKey ^= Zobrist.castlingKey(right);
+
+		castlingRights = rights;
+	}
+
+	/**
+	 * An alliance keeps a castling right while its king and the rook in that
+	 * corner of the home row have not moved.
+	 * 
+	 * @return	mask of the available castling rights
+	 */
+	private int computeCastlingRights() {
+		int rights = 0;
+
+		if (canStillCastle(whiteKing, WHITE_HOME_ROW, SIZE - 1))
+			rights |= 1 << WHITE_KINGSIDE;
+		if (canStillCastle(whiteKing, WHITE_HOME_ROW, 0))
+			rights |= 1 << WHITE_QUEENSIDE;
+		if (canStillCastle(blackKing, BLACK_HOME_ROW, SIZE - 1))
+			rights |= 1 << BLACK_KINGSIDE;
+		if (canStillCastle(blackKing, BLACK_HOME_ROW, 0))
+			rights |= 1 << BLACK_QUEENSIDE;
+
+		return rights;
+	}
+
+	private boolean canStillCastle(King king, int homeRow, int rookCol) {
+		if (king.hasMoved() || king.getPosition().row != homeRow)
+			return false;
+
+		Piece rook = tiles[homeRow][rookCol].getPiece();
+		return rook != null && rook.getType() == PieceType.ROOK && rook.getAlliance() == king.getAlliance()
+				&& !rook.hasMoved();
+	}
+
+	/**
+	 * Places the pieces of the placement field of a FEN string
+	 * 
+	 * @param placement	piece placement, rank 8 first
+	 */
+	private void placePieces(String placement) {
+		String[] rows = placement.split("/");
+		if (rows.length != SIZE)
+			throw new IllegalArgumentException("FEN placement must have 8 rows: " + placement);
+
+		for (int row = 0; row < SIZE; row++) {
+			int col = 0;
+			for (char c : rows[row].toCharArray()) {
+				if (Character.isDigit(c)) {
+					col += c - '0';
+					continue;
+				}
+
+				int type = FEN_PIECES.indexOf(Character.toLowerCase(c));
+				if (type < 0 || col >= SIZE)
+					throw new IllegalArgumentException("Invalid FEN row: " + rows[row]);
+
+				Alliance alliance = Character.isUpperCase(c) ? Alliance.WHITE : Alliance.BLACK;
+				Piece piece = createPiece(PieceType.values()[type], Position.of(row, col), alliance);
+				placePiece(piece);
+				col++;
+			}
+			if (col != SIZE)
+				throw new IllegalArgumentException("Invalid FEN row: " + rows[row]);
+		}
+	}
+
+	private Piece createPiece(PieceType type, Position position, Alliance alliance) {
+		int startRow = alliance == Alliance.WHITE ? SIZE - 2 : 1;
+
+		switch (type) {
+		case PAWN:
+			Pawn pawn = new Pawn(position, alliance);
+			pawn.setHasMoved(position.row != startRow);
+			return pawn;
+		case KNIGHT:
+			return new Knight(position, alliance);
+		case BISHOP:
+			return new Bishop(position, alliance);
+		case ROOK:
+			return new Rook(position, alliance);
+		case QUEEN:
+			return new Queen(position, alliance);
+		default:
+			if (getKing(alliance) != null)
+				throw new IllegalArgumentException("More than one " + alliance + " king");
+
+			King king = new King(position, alliance);
+			if (alliance == Alliance.WHITE)
+				whiteKing = king;
+			else
+				blackKing = king;
+			return king;
+		}
+	}
+
+	/**
+	 * Marks the king and the corner rooks as moved if the FEN castling field
+	 * does not give them a castling right
+	 */
+	private void setCastlingFlags(King king, String castling, int kingside, int queenside) {
+		boolean hasKingside = castling.indexOf(FEN_CASTLING.charAt(kingside)) >= 0;
+		boolean hasQueenside = castling.indexOf(FEN_CASTLING.charAt(queenside)) >= 0;
+		int homeRow = king.getAlliance() == Alliance.WHITE ? WHITE_HOME_ROW : BLACK_HOME_ROW;
+
+		king.setHasMoved(!hasKingside && !hasQueenside);
+		setRookMoved(homeRow, SIZE - 1, king.getAlliance(), !hasKingside);
+		setRookMoved(homeRow, 0, king.getAlliance(), !hasQueenside);
+	}
+
+	private void setRookMoved(int row, int col, Alliance alliance, boolean moved) {
+		Piece rook = tiles[row][col].getPiece();
+		if (rook != null && rook.getType() == PieceType.ROOK && rook.getAlliance() == alliance)
+			rook.setHasMoved(moved);
+	}
+
+	// getters
+
+	/**
+	 * Gets all the active pieces for the alliance. The list is a read-only view
+	 * that follows the board, so it must not be iterated while pieces are
+	 * placed or removed.
+	 * 
+	 * @param alliance	alliance
+	 * @return	all active pieces, in no particular order
+	 */
+	public List<Piece> getActivePieces(Alliance alliance) {
+		return activePieces[alliance.ordinal()];
+	}
+
+	/**
+	 * @param alliance	alliance
+	 * @return	number of pieces of the alliance
+	 */
+	public int getPieceCount(Alliance alliance) {
+		return pieceCounts[alliance.ordinal()];
+	}
+
+	/**
+	 * @param alliance	alliance
+	 * @param type	piece type
+	 * @return	number of pieces of the type of the alliance
+	 */
+	public int getPieceCount(Alliance alliance, PieceType type) {
+		return BitBoard.count(pieceBitboards[alliance.ordinal()][type.ordinal()]);
+	}
+
+	/**
+	 * @param alliance	alliance
+	 * @return	sum of the values of the pieces of the alliance, see
+	 *         {@link PieceType#getValue()}
+	 */
+	public int getMaterial(Alliance alliance) {
+		return material[alliance.ordinal()];
 	}
 	
 	/**
@@ -190,26 +783,144 @@ public class Board {
 	 * @return	all possible moves
 	 */
 	public ArrayList<Move> getAllPossibleMoves(Alliance alliance){
-		ArrayList<Move> allPossibleMoves = new ArrayList<Move>();
-		ArrayList<Piece> allActivePieces = getActivePieces(alliance);
-		
-		for(Piece piece : allActivePieces)
-			allPossibleMoves.addAll(piece.getPossibleMoves(this));
-		
-		return allPossibleMoves;
-		
+		MoveGenerator.generateMoves(this, alliance, scratchMoves);
+		return toMoves(scratchMoves);
+	}
+
+	/**
+	 * Gets all the possible moves for the alliance as packed moves
+	 * 
+	 * @param alliance	alliance
+	 * @param moves	list to fill
+	 */
+	public void getAllPossibleMoves(Alliance alliance, MoveList moves) {
+		MoveGenerator.generateMoves(this, alliance, moves);
+	}
+
+	/**
+	 * Creates the move objects of packed moves of this position
+	 * 
+	 * @param moves	packed moves
+	 * 
+	 * @return	move objects
+	 */
+	public ArrayList<Move> toMoves(MoveList moves) {
+		ArrayList<Move> list = new ArrayList<Move>(moves.size());
+
+		for (int i = 0; i < moves.size(); i++)
+			list.add(PackedMove.toMove(moves.get(i), this));
+
+		return list;
 	}
 
 	public Piece getPiece(Position position) {
 		return tiles[position.row][position.col].getPiece();
 	}
 
+	public Piece getPiece(int square) {
+		return tiles[BitBoard.row(square)][BitBoard.col(square)].getPiece();
+	}
+
 	public boolean isEmpty(Position position) {
-		return getPiece(position) == null;
+		return isEmpty(position.square);
 	}
 
+	public boolean isEmpty(int square) {
+		return !BitBoard.isSet(occupiedBitboard, square);
+	}
+
+	/**
+	 * @param alliance	alliance
+	 * @param type	piece type
+	 * 
+	 * @return	mask of the squares holding the alliance's pieces of that type
+	 */
+	public long getBitboard(Alliance alliance, PieceType type) {
+		return pieceBitboards[alliance.ordinal()][type.ordinal()];
+	}
+
+	/**
+	 * @param alliance	alliance
+	 * 
+	 * @return	mask of the squares holding the alliance's pieces
+	 */
+	public long getOccupancy(Alliance alliance) {
+		return allianceBitboards[alliance.ordinal()];
+	}
+
+	/**
+	 * @return	mask of all occupied squares
+	 */
+	public long getOccupancy() {
+		return occupiedBitboard;
+	}
+
+	/**
+	 * @param type	piece type
+	 * 
+	 * @return	mask of the squares holding pieces of that type of both alliances
+	 */
+	public long getBitboard(PieceType type) {
+		return getBitboard(Alliance.WHITE, type) | getBitboard(Alliance.BLACK, type);
+	}
+
+	public King getKing(Alliance alliance) {
+		return alliance == Alliance.WHITE ? whiteKing : blackKing;
+	}
+
+	/**
+	 * Gets the tile at the position. Pieces must be changed through
+	 * {@link #setPiece(Position, Piece)} so the bitboards stay in sync.
+	 * 
+	 * @param position	position
+	 * @return	tile
+	 */
 	public Tile getTile(Position position) {
 		return tiles[position.row][position.col];
 	}
 
+	public Alliance getSideToMove() {
+		return sideToMove;
+	}
+
+	/**
+	 * @return	mask of (1 &lt;&lt; castling right) for the available castling rights
+	 */
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	/**
+	 * @return	Zobrist key of the position
+	 */
+	public long getZobristKey() {
+		return zobristKey;
+	}
+
+
+	/**
+	 * Read-only view of the piece list of an alliance
+	 */
+	private class ActivePieces extends AbstractList<Piece> implements RandomAccess {
+
+		private final int alliance;
+
+		ActivePieces(int alliance) {
+			this.alliance = alliance;
+		}
+
+		@Override
+		public Piece get(int index) {
+			if (index >= pieceCounts[alliance])
+				throw new IndexOutOfBoundsException("Index: " + index);
+			return pieceLists[alliance][index];
+		}
+
+		@Override
+		public int size() {
+			return pieceCounts[alliance];
+		}
+
+	}
+
 }
@@ -0,0 +1,195 @@
+package engine.board;
+
+import engine.move.MoveList;
+import engine.move.PackedMove;
+import engine.piece.Alliance;
+import engine.piece.Piece;
+import engine.piece.PieceType;
+
+/**
+ * Generates the legal moves of a position as packed moves.
+ * 
+ * Pieces other than the king are limited to the legal mask of their square
+ * (see {@link Board#getLegalMask(Alliance, int)}), so no move has to be tried
+ * on the board to test if it leaves the king in check. Pawns promote to a
+ * queen.
+ *
+ */
+public final class MoveGenerator {
+
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private MoveGenerator() {
+
+	}
+
+	/**
+	 * Generates all legal moves of the alliance
+	 * 
+	 * @param board	board
+	 * @param alliance	alliance
+	 * @param moves	list to fill, is cleared first
+	 */
+	public static void generateMoves(Board board, Alliance alliance, MoveList moves) {
+		generateMoves(board, alliance, BitBoard.ALL, moves);
+	}
+
+	/**
+	 * Generates the legal captures and promotions of the alliance, the moves
+	 * followed by the quiescence search
+	 * 
+	 * @param board	board
+	 * @param alliance	alliance
+	 * @param moves	list to fill, is cleared first
+	 */
+	public static void generateCaptures(Board board, Alliance alliance, MoveList moves) {
+		generateMoves(board, alliance, board.getOccupancy(alliance.getOpposing()), moves);
+	}
+
+	/**
+	 * Generates the legal moves of the piece on the square
+	 * 
+	 * @param board	board
+	 * @param square	square of the piece
+	 * @param moves	list to fill, is cleared first
+	 */
+	public static void generatePieceMoves(Board board, int square, MoveList moves) {
+		moves.clear();
+
+		Piece piece = board.getPiece(square);
+		if (piece != null)
+			addPieceMoves(board, piece.getAlliance(), piece.getType(), square, BitBoard.ALL, moves);
+	}
+
+	// private methods
+
+	/**
+	 * Generates the moves to the target squares. Pawns also push to promote when
+	 * the targets are limited, castling needs all squares as targets.
+	 */
+	private static void generateMoves(Board board, Alliance alliance, long targetMask, MoveList moves) {
+		moves.clear();
+
+		for (PieceType type : TYPES)
+			for (long pieces = board.getBitboard(alliance, type); pieces != 0; pieces &= pieces - 1)
+				addPieceMoves(board, alliance, type, BitBoard.first(pieces), targetMask, moves);
+	}
+
+	private static void addPieceMoves(Board board, Alliance alliance, PieceType type, int square, long targetMask,
+			MoveList moves) {
+		long occupancy = board.getOccupancy();
+		long targets;
+
+		switch (type) {
+		case PAWN:
+			addPawnMoves(board, alliance, square, targetMask, moves);
+			return;
+		case KING:
+			addKingMoves(board, alliance, square, targetMask, moves);
+			return;
+		case KNIGHT:
+			targets = AttackTables.knightAttacks(square);
+			break;
+		case BISHOP:
+			targets = MagicBitboards.bishopAttacks(square, occupancy);
+			break;
+		case ROOK:
+			targets = MagicBitboards.rookAttacks(square, occupancy);
+			break;
+		default:
+			targets = MagicBitboards.queenAttacks(square, occupancy);
+			break;
+		}
+
+		targets &= ~board.getOccupancy(alliance) & board.getLegalMask(alliance, square) & targetMask;
+		addMoves(board, square, type, targets, moves);
+	}
+
+	private static void addPawnMoves(Board board, Alliance alliance, int square, long targetMask, MoveList moves) {
+		int direction = alliance == Alliance.BLACK ? Board.SIZE : -Board.SIZE;// one row down for black, up for white
+		int startRow = alliance == Alliance.BLACK ? 1 : Board.SIZE - 2;
+		int promotionRow = alliance == Alliance.BLACK ? Board.WHITE_HOME_ROW : Board.BLACK_HOME_ROW;
+		boolean allTargets = targetMask == BitBoard.ALL;
+		long legal = board.getLegalMask(alliance, square);
+
+		// one row move
+		int p1 = square + direction;
+		if (board.isEmpty(p1)) {
+			if (BitBoard.isSet(legal, p1) && (allTargets || BitBoard.row(p1) == promotionRow))
+				addPawnMove(square, p1, PackedMove.QUIET, null, moves);
+
+			// two row move
+			int p2 = p1 + direction;
+			if (allTargets && BitBoard.row(square) == startRow && board.isEmpty(p2) && BitBoard.isSet(legal, p2))
+				moves.add(PackedMove.create(square, p2, PackedMove.DOUBLE_PAWN_PUSH, PieceType.PAWN, null));
+		}
+
+		// attack moves
+		long targets = AttackTables.pawnAttacks(alliance, square) & board.getOccupancy(alliance.getOpposing()) & legal;
+		for (; targets != 0; targets &= targets - 1) {
+			int target = BitBoard.first(targets);
+			addPawnMove(square, target, PackedMove.CAPTURE, board.getPiece(target).getType(), moves);
+		}
+	}
+
+	private static void addPawnMove(int source, int destination, int flags, PieceType captured, MoveList moves) {
+		int row = BitBoard.row(destination);
+		if (row == Board.WHITE_HOME_ROW || row == Board.BLACK_HOME_ROW)
+			flags |= PackedMove.promotionFlags(PieceType.QUEEN);
+
+		moves.add(PackedMove.create(source, destination, flags, PieceType.PAWN, captured));
+	}
+
+	private static void addKingMoves(Board board, Alliance alliance, int square, long targetMask, MoveList moves) {
+		// the attack map sees through the king, so it cannot step back along the
+		// line of a checking piece
+		Alliance enemy = alliance.getOpposing();
+		long targets = AttackTables.kingAttacks(square) & ~board.getOccupancy(alliance)
+				& ~board.getAttackedSquares(enemy) & targetMask;
+		addMoves(board, square, PieceType.KING, targets, moves);
+
+		// castling, the king may not castle out of, through or into check
+		if (targetMask == BitBoard.ALL && !board.isSquareAttacked(square, enemy)) {
+			boolean isWhite = alliance == Alliance.WHITE;
+			addCastlingMove(board, square, isWhite ? Board.WHITE_KINGSIDE : Board.BLACK_KINGSIDE, 1, moves);
+			addCastlingMove(board, square, isWhite ? Board.WHITE_QUEENSIDE : Board.BLACK_QUEENSIDE, -1, moves);
+		}
+	}
+
+	/**
+	 * Adds the castling move if the alliance still has the castling right, the
+	 * tiles between king and rook are empty and the king does not pass an
+	 * attacked tile
+	 */
+	private static void addCastlingMove(Board board, int square, int right, int direction, MoveList moves) {
+		if ((board.getCastlingRights() & (1 << right)) == 0)
+			return;
+
+		int rookSquare = BitBoard.square(BitBoard.row(square), direction > 0 ? Board.SIZE - 1 : 0);
+		if ((AttackTables.between(square, rookSquare) & board.getOccupancy()) != 0)
+			return;
+
+		Alliance enemy = board.getPiece(square).getAlliance().getOpposing();
+		if (board.isSquareAttacked(square + direction, enemy) || board.isSquareAttacked(square + direction * 2, enemy))
+			return;
+
+		int flags = direction > 0 ? PackedMove.KING_CASTLE : PackedMove.QUEEN_CASTLE;
+		moves.add(PackedMove.create(square, square + direction * 2, flags, PieceType.KING, null));
+	}
+
+	/**
+	 * Adds a move to each target square, targets holding a piece become captures
+	 */
+	private static void addMoves(Board board, int source, PieceType type, long targets, MoveList moves) {
+		for (; targets != 0; targets &= targets - 1) {
+			int target = BitBoard.first(targets);
+			Piece captured = board.getPiece(target);
+
+			if (captured != null)
+				moves.add(PackedMove.create(source, target, PackedMove.CAPTURE, type, captured.getType()));
+			else
+				moves.add(PackedMove.create(source, target, PackedMove.QUIET, type, null));
+		}
+	}
+
+}
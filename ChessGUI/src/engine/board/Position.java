@@ -2,41 +2,60 @@ package engine.board;
 
 /**
  * Defines a position coordinate on board
+ * 
+ * Positions are immutable and interned, there is exactly one instance for
+ * each of the 64 squares. They can be compared with == and used as hash keys.
+ * The engine itself works with the square index, see {@link #square}.
  *
  */
-public class Position {
+public final class Position {
 
-	private static final String[] COLUMN_ALPHABETS = { "a", "b", "c", "d", "e", "f", "g", "e" };
+	private static final String[] COLUMN_ALPHABETS = { "a", "b", "c", "d", "e", "f", "g", "h" };
 
-	public int row;
-	public int col;
+	private static final Position[] POSITIONS = new Position[Board.SIZE * Board.SIZE];
 
-	public Position(int row, int col) {
-		this.row = row;
-		this.col = col;
+	static {
+		for (int square = 0; square < POSITIONS.length; square++)
+			POSITIONS[square] = new Position(square);
 	}
 
-	public Position(Position position) {
-		this(position.row, position.col);
-	}
+	public final int row;
+	public final int col;
+	public final int square;// row * 8 + col
 
-	public void add(Position position) {
-		add(position.row, position.col);
+	private Position(int square) {
+		this.square = square;
+		this.row = square / Board.SIZE;
+		this.col = square % Board.SIZE;
 	}
 
-	public void subtract(Position position) {
-		add(-position.row, -position.col);
+	/**
+	 * @param row	row
+	 * @param col	column
+	 * 
+	 * @return	the position of the tile
+	 */
+	public static Position of(int row, int col) {
+		return POSITIONS[row * Board.SIZE + col];
 	}
 
-	public void add(int dr, int dc) {
-		row += dr;
-		col += dc;
+	/**
+	 * @param square	square index 0..63
+	 * 
+	 * @return	the position of the square
+	 */
+	public static Position of(int square) {
+		return POSITIONS[square];
 	}
 
 	@Override
 	public boolean equals(Object o) {
-		Position other = (Position) o;
-		return row == other.row && col == other.col;
+		return o instanceof Position && ((Position) o).square == square;
+	}
+
+	@Override
+	public int hashCode() {
+		return square;
 	}
 
 	@Override
@@ -0,0 +1,63 @@
+package engine.board;
+
+import java.util.Random;
+
+import engine.piece.Alliance;
+import engine.piece.PieceType;
+
+/**
+ * Random keys for Zobrist hashing of board positions.
+ * 
+ * The key of a position is the XOR of the keys of every piece on its square,
+ * of every castling right that is still available and of the side key when
+ * white is to move. The keys are laid out like the Polyglot opening book
+ * format: 768 piece-square keys, 4 castling keys and 1 side key.
+ *
+ */
+public final class Zobrist {
+
+	private static final int CASTLING_OFFSET = 768;
+	private static final int SIDE_OFFSET = 780;
+
+	private static final long[] KEYS = new long[781];
+
+	static {
+		Random random = new Random(0x5EED5EEDL);
+		for (int i = 0; i < KEYS.length; i++)
+			KEYS[i] = random.nextLong();
+	}
+
+	private Zobrist() {
+
+	}
+
+	/**
+	 * @param alliance	alliance of the piece
+	 * @param type	type of the piece
+	 * @param square	square of the piece
+	 * 
+	 * @return	key of the piece on the square
+	 */
+	public static long pieceKey(Alliance alliance, PieceType type, int square) {
+		int kind = type.ordinal() * 2 + (alliance == Alliance.WHITE ? 1 : 0);
+		int rank = Board.SIZE - 1 - BitBoard.row(square);
+		return KEYS[kind * 64 + rank * Board.SIZE + BitBoard.col(square)];
+	}
+
+	/**
+	 * @param right	index of the castling right, see {@link Board#WHITE_KINGSIDE}
+	 * 
+	 * @return	key of the castling right
+	 */
+	public static long castlingKey(int right) {
+		return KEYS[CASTLING_OFFSET + right];
+	}
+
+	/**
+	 * @return	key xored in when white is to move
+	 */
+	public static long sideKey() {
+		return KEYS[SIDE_OFFSET];
+	}
+
+}
@@ -0,0 +1,326 @@
+package engine.book;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import engine.board.BitBoard;
+import engine.board.Board;
+import engine.move.MoveList;
+import engine.move.PackedMove;
+import engine.piece.Alliance;
+import engine.piece.PieceType;
+
+/**
+ * Compiles an {@link OpeningBook} from the games of a PGN file.
+ *
+ * The moves of the first plies of every game are replayed from the start
+ * position, or the FEN tag of the game, and counted per position. A move
+ * scores 2 for the side that played it if the game was won, 1 if it was
+ * drawn or has no result and 0 if it was lost.
+ *
+ * The game starts from its own position, not the standard one, so games of
+ * standard chess only match for a move or two. A game is only added if all
+ * its plies up to the book depth are legal. Games that cannot be replayed
+ * are skipped whole, so they leave no entries behind. Games of standard
+ * chess need a FEN tag with the standard start position.
+ *
+ * Usage: BookBuilder &lt;games.pgn&gt; &lt;book.bin&gt; [plies=N] [minCount=N]
+ *
+ */
+public class BookBuilder {
+
+	private static final String PIECE_LETTERS = "PNBRQK";
+
+	private final int maxPlies;
+	private final int minCount;
+	// position key -> book move -> count and weight
+	private final Map<Long, Map<Integer, int[]>> positions = new HashMap<Long, Map<Integer, int[]>>();
+	private final MoveList moves = new MoveList();
+	private int games;
+	private int skippedGames;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxPlies	plies of every game added to the book
+	 * @param minCount	times a move must have been played to be kept
+	 */
+	public BookBuilder(int maxPlies, int minCount) {
+		this.maxPlies = maxPlies;
+		this.minCount = minCount;
+	}
+
+	/**
+	 * Adds all games of the PGN file
+	 *
+	 * @param pgn	PGN file
+	 *
+	 * @throws IOException	if the file cannot be read
+	 */
+	public void addGames(Path pgn) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(pgn, StandardCharsets.ISO_8859_1)) {
+			PgnReader games = new PgnReader(reader);
+			while (games.next())
+				addGame(games.getTag("FEN"), games.getTag("Result"), games.getMoves());
+		}
+	}
+
+	/**
+	 * Adds the first plies of a game, if they are all legal
+	 *
+	 * @param fen	start position, null for the start position of the game
+	 * @param result	result tag, null if unknown
+	 * @param sanMoves	moves in standard algebraic notation
+	 *
+	 * @return	true if the game was added
+	 */
+	public boolean addGame(String fen, String result, List<String> sanMoves) {
+		Board board;
+		try {
+			board = fen == null ? new Board() : new Board(fen);
+		} catch (IllegalArgumentException e) {
+			skippedGames++;
+			return false;
+		}
+
+		// replayed before anything is counted, a game that turns illegal is
+		// most likely one of standard chess
+		int plies = Math.min(maxPlies, sanMoves.size());
+		long[] keys = new long[plies];
+		int[] bookMoves = new int[plies];
+		Alliance[] sides = new Alliance[plies];
+		for (int i = 0; i < plies; i++) {
+			int move = parseMove(board, sanMoves.get(i));
+			if (move == PackedMove.NONE) {
+				skippedGames++;
+				return false;
+			}
+
+			keys[i] = board.getZobristKey();
+			bookMoves[i] = OpeningBook.encodeMove(move);
+			sides[i] = board.getSideToMove();
+			board.makeMove(move);
+		}
+
+		for (int i = 0; i < plies; i++) {
+			int[] entry = positions.computeIfAbsent(keys[i], k -> new HashMap<Integer, int[]>())
+					.computeIfAbsent(bookMoves[i], k -> new int[2]);
+			entry[0]++;
+			entry[1] += score(result, sides[i]);
+		}
+		games++;
+		return true;
+	}
+
+	/**
+	 * @return	points of the game for the alliance
+	 */
+	private static int score(String result, Alliance alliance) {
+		if ("1-0".equals(result))
+			return alliance == Alliance.WHITE ? 2 : 0;
+		if ("0-1".equals(result))
+			return alliance == Alliance.BLACK ? 2 : 0;
+		return 1;
+	}
+
+	/**
+	 * Finds the legal move of a move in standard algebraic notation
+	 *
+	 * @param board	board
+	 * @param san	move, such as e4, Nbd7, exd5, O-O or e8=Q
+	 *
+	 * @return	packed move, {@link PackedMove#NONE} if no legal move matches
+	 */
+	public int parseMove(Board board, String san) {
+		board.getAllPossibleMoves(board.getSideToMove(), moves);
+
+		// check marks and capture signs are not needed to find the move
+		String text = san.replace("+", "").replace("#", "").replace("x", "").replace("=", "").replace('0', 'O');
+
+		if (text.equals("O-O") || text.equals("O-O-O")) {
+			int flags = text.equals("O-O") ? PackedMove.KING_CASTLE : PackedMove.QUEEN_CASTLE;
+			for (int i = 0; i < moves.size(); i++)
+				if (PackedMove.getFlags(moves.get(i)) == flags)
+					return moves.get(i);
+			return PackedMove.NONE;
+		}
+
+		PieceType promotion = null;
+		char last = text.isEmpty() ? ' ' : text.charAt(text.length() - 1);
+		if (PIECE_LETTERS.indexOf(last) > 0) {
+			promotion = pieceType(last);
+			text = text.substring(0, text.length() - 1);
+		}
+
+		PieceType type = PieceType.PAWN;
+		if (!text.isEmpty() && PIECE_LETTERS.indexOf(text.charAt(0)) > 0) {
+			type = pieceType(text.charAt(0));
+			text = text.substring(1);
+		}
+
+		if (text.length() < 2)
+			return PackedMove.NONE;
+		int destination = square(text.charAt(text.length() - 2), text.charAt(text.length() - 1));
+		if (destination < 0)
+			return PackedMove.NONE;
+
+		// what is left is the file and / or rank of the moving piece
+		String from = text.substring(0, text.length() - 2);
+		int fromCol = -1;
+		int fromRow = -1;
+		for (char c : from.toCharArray()) {
+			if (c >= 'a' && c <= 'h')
+				fromCol = c - 'a';
+			else if (c >= '1' && c <= '8')
+				fromRow = Board.SIZE - (c - '0');
+		}
+
+		int found = PackedMove.NONE;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			int source = PackedMove.getSource(move);
+			if (PackedMove.isCastling(move) || PackedMove.getMovingType(move) != type
+					|| PackedMove.getDestination(move) != destination
+					|| PackedMove.getPromotionType(move) != promotion
+					|| (fromCol >= 0 && BitBoard.col(source) != fromCol)
+					|| (fromRow >= 0 && BitBoard.row(source) != fromRow))
+				continue;
+
+			// ambiguous moves are not guessed
+			if (found != PackedMove.NONE)
+				return PackedMove.NONE;
+			found = move;
+		}
+		return found;
+	}
+
+	/**
+	 * @return	the piece type of a SAN piece letter
+	 */
+	private static PieceType pieceType(char letter) {
+		switch (letter) {
+		case 'N':
+			return PieceType.KNIGHT;
+		case 'B':
+			return PieceType.BISHOP;
+		case 'R':
+			return PieceType.ROOK;
+		case 'Q':
+			return PieceType.QUEEN;
+		case 'K':
+			return PieceType.KING;
+		default:
+			return PieceType.PAWN;
+		}
+	}
+
+	/**
+	 * @return	square of a file and rank, -1 if they are not valid
+	 */
+	private static int square(char file, char rank) {
+		if (file < 'a' || file > 'h' || rank < '1' || rank > '8')
+			return -1;
+		return BitBoard.square(Board.SIZE - (rank - '0'), file - 'a');
+	}
+
+	/**
+	 * Writes the book, the entries sorted by key and the moves of a position by
+	 * weight. The weights are scaled down if they do not fit in 16 bits.
+	 *
+	 * @param book	book file
+	 *
+	 * @return	number of entries written
+	 *
+	 * @throws IOException	if the file cannot be written
+	 */
+	public int write(Path book) throws IOException {
+		List<long[]> entries = new ArrayList<long[]>();
+		long maxWeight = 1;
+
+		for (Map.Entry<Long, Map<Integer, int[]>> position : positions.entrySet())
+			for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+				int[] counts = move.getValue();
+				// moves that only lost are left out
+				if (counts[0] < minCount || counts[1] == 0)
+					continue;
+
+				entries.add(new long[] { position.getKey(), move.getKey(), counts[1] });
+				maxWeight = Math.max(maxWeight, counts[1]);
+			}
+
+		entries.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(book)))) {
+			for (long[] entry : entries) {
+				long weight = maxWeight > 0xFFFF ? Math.max(1, entry[2] * 0xFFFF / maxWeight) : entry[2];
+
+				out.writeLong(entry[0]);
+				out.writeShort((int) entry[1]);
+				out.writeShort((int) weight);
+				out.writeInt(0);
+			}
+		}
+		return entries.size();
+	}
+
+	// getters
+
+	/**
+	 * @return	number of games added
+	 */
+	public int getGames() {
+		return games;
+	}
+
+	/**
+	 * @return	number of games skipped as they could not be replayed
+	 */
+	public int getSkippedGames() {
+		return skippedGames;
+	}
+
+	/**
+	 * @return	number of positions in the book
+	 */
+	public int getPositions() {
+		return positions.size();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: BookBuilder <games.pgn> <book.bin> [plies=N] [minCount=N]");
+			return;
+		}
+
+		int plies = 20;
+		int minCount = 1;
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].startsWith("plies="))
+				plies = Integer.parseInt(args[i].substring(6));
+			else if (args[i].startsWith("minCount="))
+				minCount = Integer.parseInt(args[i].substring(9));
+		}
+
+		BookBuilder builder = new BookBuilder(plies, minCount);
+		long start = System.nanoTime();
+		builder.addGames(Paths.get(args[0]));
+		int entries = builder.write(Paths.get(args[1]));
+
+		System.out.println("Games: " + builder.getGames());
+		System.out.println("Skipped: " + builder.getSkippedGames());
+		System.out.println("Positions: " + builder.getPositions());
+		System.out.println("Entries: " + entries);
+		System.out.println("Time: " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+}
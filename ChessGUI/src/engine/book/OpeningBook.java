@@ -0,0 +1,189 @@
+package engine.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import engine.board.BitBoard;
+import engine.board.Board;
+import engine.move.MoveList;
+import engine.move.PackedMove;
+import engine.piece.PieceType;
+
+/**
+ * An opening book in the binary Polyglot layout, memory mapped and searched
+ * by binary search.
+ *
+ * The file is a sequence of 16 byte big endian entries sorted by key: the key
+ * of the position (8 bytes), the move (2 bytes), its weight (2 bytes) and a
+ * learn value (4 bytes, unused). Moves are encoded like Polyglot: bits 0-2
+ * destination file, 3-5 destination rank, 6-8 source file, 9-11 source rank,
+ * 12-14 promotion piece, and castling is written as the king capturing its
+ * own rook. The keys are the Zobrist keys of {@link Board}, since the engine
+ * does not play from the standard start position.
+ *
+ */
+public class OpeningBook {
+
+	public static final int ENTRY_BYTES = 16;
+
+	// most moves of a position that are considered
+	private static final int MAX_MOVES = 64;
+
+	private final ByteBuffer entries;
+	private final int size;
+	private final Random random;
+
+	/**
+	 * Constructor
+	 *
+	 * @param entries	buffer holding the sorted entries
+	 * @param random	source of the weighted move choice
+	 */
+	public OpeningBook(ByteBuffer entries, Random random) {
+		this.entries = entries;
+		this.random = random;
+		size = entries.capacity() / ENTRY_BYTES;
+	}
+
+	/**
+	 * Maps the book file into memory
+	 *
+	 * @param path	book file
+	 *
+	 * @return	the book
+	 *
+	 * @throws IOException	if the file cannot be read
+	 */
+	public static OpeningBook open(Path path) throws IOException {
+		// the mapping stays valid after the channel is closed
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), new Random());
+		}
+	}
+
+	/**
+	 * Chooses a book move for the side to move, each move with a chance
+	 * proportional to its weight
+	 *
+	 * @param board	board
+	 *
+	 * @return	legal packed move, {@link PackedMove#NONE} if the position is not
+	 *         in the book
+	 */
+	public int probe(Board board) {
+		long key = board.getZobristKey();
+		int index = firstIndex(key);
+		// most positions are not in the book, they need no move generation
+		if (index == size || getKey(index) != key)
+			return PackedMove.NONE;
+
+		MoveList legalMoves = new MoveList();
+		board.getAllPossibleMoves(board.getSideToMove(), legalMoves);
+
+		int[] moves = new int[MAX_MOVES];
+		int[] weights = new int[MAX_MOVES];
+		int count = 0;
+		int totalWeight = 0;
+
+		for (; index < size && getKey(index) == key && count < MAX_MOVES; index++) {
+			int move = findMove(legalMoves, getMove(index));
+			int weight = getWeight(index);
+			if (move == PackedMove.NONE || weight == 0)
+				continue;
+
+			moves[count] = move;
+			weights[count] = weight;
+			totalWeight += weight;
+			count++;
+		}
+
+		if (count == 0)
+			return PackedMove.NONE;
+
+		int choice = random.nextInt(totalWeight);
+		for (int i = 0; i < count; i++) {
+			choice -= weights[i];
+			if (choice < 0)
+				return moves[i];
+		}
+		return moves[count - 1];
+	}
+
+	/**
+	 * Encodes a packed move in the Polyglot move format
+	 *
+	 * @param move	packed move
+	 *
+	 * @return	book move
+	 */
+	public static int encodeMove(int move) {
+		int source = PackedMove.getSource(move);
+		int destination = PackedMove.getDestination(move);
+
+		// castling is the king taking its rook
+		if (PackedMove.isCastling(move))
+			destination = BitBoard.square(BitBoard.row(source),
+					PackedMove.getFlags(move) == PackedMove.KING_CASTLE ? Board.SIZE - 1 : 0);
+
+		int promotion = 0;
+		if (PackedMove.isPromotion(move))
+			promotion = PackedMove.getPromotionType(move).ordinal() - PieceType.KNIGHT.ordinal() + 1;
+
+		// ranks count from white's side, rows from black's
+		return (promotion << 12) | ((Board.SIZE - 1 - BitBoard.row(source)) << 9) | (BitBoard.col(source) << 6)
+				| ((Board.SIZE - 1 - BitBoard.row(destination)) << 3) | BitBoard.col(destination);
+	}
+
+	/**
+	 * @return	the legal move with the book encoding, NONE if there is none
+	 */
+	private static int findMove(MoveList legalMoves, int bookMove) {
+		for (int i = 0; i < legalMoves.size(); i++)
+			if (encodeMove(legalMoves.get(i)) == bookMove)
+				return legalMoves.get(i);
+		return PackedMove.NONE;
+	}
+
+	/**
+	 * @return	index of the first entry with the key or a greater one
+	 */
+	private int firstIndex(long key) {
+		int low = 0;
+		int high = size;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(getKey(mid), key) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private long getKey(int index) {
+		return entries.getLong(index * ENTRY_BYTES);
+	}
+
+	private int getMove(int index) {
+		return entries.getShort(index * ENTRY_BYTES + 8) & 0xFFFF;
+	}
+
+	private int getWeight(int index) {
+		return entries.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+	}
+
+	// getters
+
+	/**
+	 * @return	number of entries
+	 */
+	public int getSize() {
+		return size;
+	}
+
+}
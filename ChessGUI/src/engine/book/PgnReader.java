@@ -0,0 +1,175 @@
+package engine.book;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the games of a PGN file one after the other. Of every game the tags
+ * and the moves of the main line in standard algebraic notation are kept,
+ * comments, variations, annotations and move numbers are skipped.
+ *
+ */
+public class PgnReader {
+
+	private final BufferedReader reader;
+	private final Map<String, String> tags = new HashMap<String, String>();
+	private final List<String> moves = new ArrayList<String>();
+	private String pendingLine;
+
+	/**
+	 * Constructor
+	 *
+	 * @param reader	reader of the PGN text
+	 */
+	public PgnReader(BufferedReader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the next game
+	 *
+	 * @return	false if there are no more games
+	 *
+	 * @throws IOException	if the text cannot be read
+	 */
+	public boolean next() throws IOException {
+		tags.clear();
+		moves.clear();
+
+		StringBuilder movetext = new StringBuilder();
+		boolean inMovetext = false;
+		boolean found = false;
+		String line;
+
+		while ((line = readLine()) != null) {
+			String trimmed = line.trim();
+
+			if (trimmed.startsWith("[")) {
+				// the tags of the next game
+				if (inMovetext) {
+					pendingLine = line;
+					break;
+				}
+				readTag(trimmed);
+				found = true;
+			} else if (!trimmed.isEmpty() && !trimmed.startsWith("%")) {
+				movetext.append(trimmed).append('\n');
+				inMovetext = true;
+				found = true;
+			}
+		}
+
+		if (found)
+			readMoves(movetext);
+		return found;
+	}
+
+	private String readLine() throws IOException {
+		if (pendingLine == null)
+			return reader.readLine();
+
+		String line = pendingLine;
+		pendingLine = null;
+		return line;
+	}
+
+	/**
+	 * Reads a tag of the form [Name "value"]
+	 */
+	private void readTag(String line) {
+		int quote = line.indexOf('"');
+		int lastQuote = line.lastIndexOf('"');
+		if (quote < 0 || lastQuote <= quote)
+			return;
+
+		tags.put(line.substring(1, quote).trim(), line.substring(quote + 1, lastQuote).replace("\\\"", "\""));
+	}
+
+	/**
+	 * Splits the movetext into the moves of the main line
+	 */
+	private void readMoves(CharSequence movetext) {
+		StringBuilder token = new StringBuilder();
+		int variationDepth = 0;
+
+		for (int i = 0; i < movetext.length(); i++) {
+			char c = movetext.charAt(i);
+
+			if (c == '{') {
+				addMove(token, variationDepth);
+				int end = indexOf(movetext, '}', i);
+				i = end < 0 ? movetext.length() : end;
+			} else if (c == ';') {
+				addMove(token, variationDepth);
+				int end = indexOf(movetext, '\n', i);
+				i = end < 0 ? movetext.length() : end;
+			} else if (c == '(') {
+				addMove(token, variationDepth);
+				variationDepth++;
+			} else if (c == ')') {
+				addMove(token, variationDepth);
+				variationDepth = Math.max(0, variationDepth - 1);
+			} else if (Character.isWhitespace(c)) {
+				addMove(token, variationDepth);
+			} else {
+				token.append(c);
+			}
+		}
+		addMove(token, variationDepth);
+	}
+
+	/**
+	 * Adds the token as a move if it is one of the main line
+	 */
+	private void addMove(StringBuilder token, int variationDepth) {
+		String move = token.toString();
+		token.setLength(0);
+
+		// move numbers may be written together with the move, as in 1.e4
+		int dot = move.lastIndexOf('.');
+		if (dot >= 0)
+			move = move.substring(dot + 1);
+
+		// annotations such as e4! or Nf3?!
+		while (!move.isEmpty() && (move.endsWith("!") || move.endsWith("?")))
+			move = move.substring(0, move.length() - 1);
+
+		if (variationDepth > 0 || move.isEmpty() || move.startsWith("$") || isResult(move))
+			return;
+		moves.add(move);
+	}
+
+	private static boolean isResult(String token) {
+		return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+	}
+
+	private static int indexOf(CharSequence text, char c, int from) {
+		for (int i = from; i < text.length(); i++)
+			if (text.charAt(i) == c)
+				return i;
+		return -1;
+	}
+
+	// getters
+
+	/**
+	 * @param name	tag name
+	 *
+	 * @return	the value of the tag of the current game, null if it has none
+	 */
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	/**
+	 * @return	moves of the main line of the current game
+	 */
+	public List<String> getMoves() {
+		return moves;
+	}
+
+}
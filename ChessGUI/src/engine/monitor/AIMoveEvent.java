@@ -0,0 +1,31 @@
+package engine.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning an AI move, from the player's move to the AI
+ * move being made
+ *
+ */
+@Name("chessgui.AIMove")
+@Label("AI Move")
+@Category({ "ChessGUI", "Game" })
+@Description("A move of the AI player")
+public final class AIMoveEvent extends Event {
+
+	@Label("Move")
+	public String move;
+
+	@Label("Ponder Hit")
+	@Description("The move came from the search on the player's time")
+	public boolean ponderHit;
+
+	@Label("Book Move")
+	@Description("The move came from the opening book")
+	public boolean bookMove;
+
+}
@@ -0,0 +1,32 @@
+package engine.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning one finished iteration of a search
+ *
+ */
+@Name("chessgui.SearchIteration")
+@Label("Search Iteration")
+@Category({ "ChessGUI", "Engine" })
+@Description("An iteration of the iterative deepening search")
+public final class IterationEvent extends Event {
+
+	@Label("Depth")
+	public int depth;
+
+	@Label("Score")
+	public int score;
+
+	@Label("Nodes")
+	@Description("Nodes of the main and quiescence search so far")
+	public long nodes;
+
+	@Label("Principal Variation")
+	public String principalVariation;
+
+}
@@ -0,0 +1,46 @@
+package engine.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning a search, from its start to its end
+ *
+ */
+@Name("chessgui.Search")
+@Label("Search")
+@Category({ "ChessGUI", "Engine" })
+@Description("A search of the engine")
+public final class SearchEvent extends Event {
+
+	@Label("Depth")
+	public int depth;
+
+	@Label("Nodes")
+	@Description("Nodes of all threads")
+	public long nodes;
+
+	@Label("Nodes per Second")
+	public long nodesPerSecond;
+
+	@Label("Threads")
+	public int threads;
+
+	@Label("TT Move Cutoffs")
+	@Description("Cutoffs of the main search made by the move from the table")
+	public long ttMoveCutoffs;
+
+	@Label("Table Hits")
+	public long tableHits;
+
+	@Label("Table Collisions")
+	@Description("Table misses on a bucket holding other positions")
+	public long tableCollisions;
+
+	@Label("Best Move")
+	public String bestMove;
+
+}
@@ -0,0 +1,206 @@
+package engine.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import engine.ai.SearchStatistics;
+
+/**
+ * Collects the statistics of all searches of the program. The single instance
+ * is registered with the platform MBean server under {@link #OBJECT_NAME}, so
+ * the counters can be watched with any JMX console.
+ *
+ * The counters add up from the start of the program or the last reset. Search
+ * times and AI move latencies are kept as histograms over fixed buckets, a
+ * value falls into the first bucket whose bound is not below it, or into the
+ * last bucket if it is above all bounds.
+ *
+ */
+public final class SearchMonitor implements SearchMonitorMBean {
+
+	public static final String OBJECT_NAME = "engine:type=SearchMonitor";
+
+	// upper bounds of the histogram buckets
+	private static final long[] BOUNDS_MILLIS = { 10, 50, 100, 250, 500, 1000, 2000, 3000, 5000, 10000 };
+
+	private static final SearchMonitor INSTANCE = new SearchMonitor();
+
+	private long searches;
+	private long aiMoves;
+	private long totalNodes;
+	private long totalTimeMillis;
+	private long totalDepth;
+	private long cutoffs;
+	private long firstMoveCutoffs;
+	private long ttMoveCutoffs;
+	private long tableHits;
+	private long tableMisses;
+	private long tableCollisions;
+	private long maxTimeMillis;
+	private final long[] searchTimes = new long[BOUNDS_MILLIS.length + 1];
+	private final long[] aiMoveLatencies = new long[BOUNDS_MILLIS.length + 1];
+	private SearchStatistics lastSearch;
+
+	private SearchMonitor() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			// already registered by another class loader, the counters are
+			// still kept but not published
+		}
+	}
+
+	/**
+	 * @return	the monitor
+	 */
+	public static SearchMonitor getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Adds a finished search
+	 *
+	 * @param statistics	statistics of the search
+	 */
+	public synchronized void searchFinished(SearchStatistics statistics) {
+		searches++;
+		totalNodes += statistics.getSearchedNodes();
+		totalTimeMillis += statistics.getTimeMillis();
+		totalDepth += statistics.getDepth();
+		cutoffs += statistics.getCutoffs();
+		firstMoveCutoffs += statistics.getFirstMoveCutoffs();
+		ttMoveCutoffs += statistics.getTTMoveCutoffs();
+		tableHits += statistics.getTableHits();
+		tableMisses += statistics.getTableMisses();
+		tableCollisions += statistics.getTableCollisions();
+		maxTimeMillis = Math.max(maxTimeMillis, statistics.getTimeMillis());
+		searchTimes[bucket(statistics.getTimeMillis())]++;
+		lastSearch = statistics;
+	}
+
+	/**
+	 * Adds a move made by the AI
+	 *
+	 * @param latencyMillis	time from the player's move to the AI move
+	 */
+	public synchronized void aiMoveMade(long latencyMillis) {
+		aiMoves++;
+		aiMoveLatencies[bucket(latencyMillis)]++;
+	}
+
+	@Override
+	public synchronized void reset() {
+		searches = 0;
+		aiMoves = 0;
+		totalNodes = 0;
+		totalTimeMillis = 0;
+		totalDepth = 0;
+		cutoffs = 0;
+		firstMoveCutoffs = 0;
+		ttMoveCutoffs = 0;
+		tableHits = 0;
+		tableMisses = 0;
+		tableCollisions = 0;
+		maxTimeMillis = 0;
+		Arrays.fill(searchTimes, 0);
+		Arrays.fill(aiMoveLatencies, 0);
+		lastSearch = null;
+	}
+
+	private static int bucket(long millis) {
+		for (int i = 0; i < BOUNDS_MILLIS.length; i++)
+			if (millis <= BOUNDS_MILLIS[i])
+				return i;
+		return BOUNDS_MILLIS.length;
+	}
+
+	// getters
+
+	@Override
+	public synchronized long getSearches() {
+		return searches;
+	}
+
+	@Override
+	public synchronized long getAIMoves() {
+		return aiMoves;
+	}
+
+	@Override
+	public synchronized long getTotalNodes() {
+		return totalNodes;
+	}
+
+	@Override
+	public synchronized long getTotalSearchTimeMillis() {
+		return totalTimeMillis;
+	}
+
+	@Override
+	public synchronized long getAverageNodesPerSecond() {
+		return totalTimeMillis == 0 ? 0 : totalNodes * 1000 / totalTimeMillis;
+	}
+
+	@Override
+	public synchronized double getAverageDepth() {
+		return searches == 0 ? 0 : (double) totalDepth / searches;
+	}
+
+	@Override
+	public synchronized double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	@Override
+	public synchronized double getTTMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) ttMoveCutoffs / cutoffs;
+	}
+
+	@Override
+	public synchronized double getTableHitRate() {
+		long probes = tableHits + tableMisses;
+		return probes == 0 ? 0 : (double) tableHits / probes;
+	}
+
+	@Override
+	public synchronized double getTableCollisionRate() {
+		long probes = tableHits + tableMisses;
+		return probes == 0 ? 0 : (double) tableCollisions / probes;
+	}
+
+	@Override
+	public synchronized long getMaxSearchTimeMillis() {
+		return maxTimeMillis;
+	}
+
+	@Override
+	public long[] getHistogramBoundsMillis() {
+		return BOUNDS_MILLIS.clone();
+	}
+
+	@Override
+	public synchronized long[] getSearchTimeHistogram() {
+		return searchTimes.clone();
+	}
+
+	@Override
+	public synchronized long[] getAIMoveLatencyHistogram() {
+		return aiMoveLatencies.clone();
+	}
+
+	@Override
+	public synchronized String getLastSearch() {
+		return lastSearch == null ? "" : lastSearch.toString();
+	}
+
+	/**
+	 * @return	statistics of the last search, null if there was none
+	 */
+	public synchronized SearchStatistics getLastStatistics() {
+		return lastSearch;
+	}
+
+}
@@ -0,0 +1,40 @@
+package engine.monitor;
+
+/**
+ * Management interface of the {@link SearchMonitor}
+ *
+ */
+public interface SearchMonitorMBean {
+
+	long getSearches();
+
+	long getAIMoves();
+
+	long getTotalNodes();
+
+	long getTotalSearchTimeMillis();
+
+	long getAverageNodesPerSecond();
+
+	double getAverageDepth();
+
+	double getFirstMoveCutoffRate();
+
+	double getTTMoveCutoffRate();
+
+	double getTableHitRate();
+
+	double getTableCollisionRate();
+
+	long getMaxSearchTimeMillis();
+
+	long[] getHistogramBoundsMillis();
+
+	long[] getSearchTimeHistogram();
+
+	long[] getAIMoveLatencyHistogram();
+
+	String getLastSearch();
+
+	void reset();
+}
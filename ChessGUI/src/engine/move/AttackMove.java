@@ -25,7 +25,7 @@ public class AttackMove extends Move{
 	@Override
 	public void undo(Board board) {
 		super.undo(board);
-		board.getTile(getDestination()).setPiece(getAttackedPiece());
+		board.setPiece(getDestination(), getAttackedPiece());
 	}
 
 	public Piece getAttackedPiece() {
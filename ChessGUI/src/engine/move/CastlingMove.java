@@ -28,7 +28,7 @@ public class CastlingMove extends Move{
 	@Override
 	public void undo(Board board) {
 		super.undo(board);
-		rookMove.execute(board);
+		rookMove.undo(board);
 	}
 
 	public Move getRookMove() {
@@ -25,12 +25,13 @@ public class Move {
 		hasMoved = movingPiece.hasMoved();
 		board.movePiece(movingPiece, destination);
 		movingPiece.moved();
+		board.updateState(movingPiece.getAlliance().getOpposing());
 	}
 
 	public void undo(Board board) {
 		board.movePiece(movingPiece, source);
 		movingPiece.setHasMoved(hasMoved);
-
+		board.updateState(movingPiece.getAlliance());
 	}
 
 	@Override
@@ -0,0 +1,52 @@
+package engine.move;
+
+/**
+ * A reusable list of packed moves backed by an int array. Search code keeps
+ * one list per ply, so generating moves does not allocate.
+ *
+ */
+public class MoveList {
+
+	// more than the legal moves of any chess position
+	public static final int CAPACITY = 256;
+
+	private final int[] moves = new int[CAPACITY];
+	private int size;
+
+	public void add(int move) {
+		moves[size++] = move;
+	}
+
+	public int get(int index) {
+		return moves[index];
+	}
+
+	public void set(int index, int move) {
+		moves[index] = move;
+	}
+
+	/**
+	 * Swaps two moves of the list
+	 * 
+	 * @param i	index
+	 * @param j	index
+	 */
+	public void swap(int i, int j) {
+		int move = moves[i];
+		moves[i] = moves[j];
+		moves[j] = move;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
@@ -0,0 +1,215 @@
+package engine.move;
+
+import engine.board.BitBoard;
+import engine.board.Board;
+import engine.board.Position;
+import engine.piece.Bishop;
+import engine.piece.King;
+import engine.piece.Knight;
+import engine.piece.Piece;
+import engine.piece.PieceType;
+import engine.piece.Queen;
+import engine.piece.Rook;
+
+/**
+ * Encodes a move in a single int, so the engine can generate and search moves
+ * without creating objects.
+ * 
+ * <pre>
+ * bits  0-5   source square
+ * bits  6-11  destination square
+ * bits 12-15  flags
+ * bits 16-18  type of the moving piece
+ * bits 19-21  type of the captured piece, if the move is a capture
+ * </pre>
+ * 
+ * The low 16 bits identify the move within a position and are what the
+ * transposition table stores. Conversion to the {@link Move} classes is done
+ * only where the moves leave the engine.
+ *
+ */
+public final class PackedMove {
+
+	public static final int NONE = 0;
+
+	// flags
+	public static final int QUIET = 0;
+	public static final int DOUBLE_PAWN_PUSH = 1;
+	public static final int KING_CASTLE = 2;
+	public static final int QUEEN_CASTLE = 3;
+	public static final int CAPTURE = 4;
+	public static final int PROMOTION = 8;// the low two flag bits hold the promotion piece
+
+	private static final int FLAGS_SHIFT = 12;
+	private static final int MOVING_SHIFT = 16;
+	private static final int CAPTURED_SHIFT = 19;
+
+	private static final PieceType[] TYPES = PieceType.values();// values() copies the array on every call
+
+	private PackedMove() {
+
+	}
+
+	/**
+	 * @param source	source square
+	 * @param destination	destination square
+	 * @param flags	flags
+	 * @param moving	type of the moving piece
+	 * @param captured	type of the captured piece, null if none
+	 * 
+	 * @return	packed move
+	 */
+	public static int create(int source, int destination, int flags, PieceType moving, PieceType captured) {
+		int move = source | destination << 6 | flags << FLAGS_SHIFT | moving.ordinal() << MOVING_SHIFT;
+		if (captured != null)
+			move |= captured.ordinal() << CAPTURED_SHIFT;
+		return move;
+	}
+
+	/**
+	 * @param type	knight, bishop, rook or queen
+	 * @return	flags of a promotion to the piece type
+	 */
+	public static int promotionFlags(PieceType type) {
+		return PROMOTION | (type.ordinal() - PieceType.KNIGHT.ordinal());
+	}
+
+	public static int getSource(int move) {
+		return move & 0x3F;
+	}
+
+	public static int getDestination(int move) {
+		return (move >>> 6) & 0x3F;
+	}
+
+	public static int getFlags(int move) {
+		return (move >>> FLAGS_SHIFT) & 0xF;
+	}
+
+	public static PieceType getMovingType(int move) {
+		return TYPES[(move >>> MOVING_SHIFT) & 0x7];
+	}
+
+	public static PieceType getCapturedType(int move) {
+		return isCapture(move) ? TYPES[(move >>> CAPTURED_SHIFT) & 0x7] : null;
+	}
+
+	public static PieceType getPromotionType(int move) {
+		return isPromotion(move) ? TYPES[PieceType.KNIGHT.ordinal() + (getFlags(move) & 0x3)] : null;
+	}
+
+	public static boolean isCapture(int move) {
+		return (getFlags(move) & CAPTURE) != 0;
+	}
+
+	public static boolean isPromotion(int move) {
+		return (getFlags(move) & PROMOTION) != 0;
+	}
+
+	public static boolean isCastling(int move) {
+		int flags = getFlags(move);
+		return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+	}
+
+	/**
+	 * @param move	packed move
+	 * @return	source, destination and flags of the move in 16 bits
+	 */
+	public static int toShort(int move) {
+		return move & 0xFFFF;
+	}
+
+	/**
+	 * Creates the {@link Move} object for a packed move of the board's position
+	 * 
+	 * @param move	packed move
+	 * @param board	board, before the move is executed
+	 * 
+	 * @return	move object
+	 */
+	public static Move toMove(int move, Board board) {
+		int source = getSource(move);
+		int destination = getDestination(move);
+		Piece piece = board.getPiece(source);
+
+		if (isCastling(move)) {
+			int row = BitBoard.row(source);
+			int direction = getFlags(move) == KING_CASTLE ? 1 : -1;
+			int rookCol = direction > 0 ? Board.SIZE - 1 : 0;
+
+			return new CastlingMove(Position.of(source), Position.of(destination), Position.of(row, rookCol),
+					Position.of(source + direction), (King) piece,
+					(Rook) board.getPiece(BitBoard.square(row, rookCol)));
+		}
+
+		Move m;
+		if (isCapture(move))
+			m = new AttackMove(Position.of(source), Position.of(destination), piece);
+		else
+			m = new Move(Position.of(source), Position.of(destination), piece);
+
+		if (isPromotion(move)) {
+			PawnPromotionMove promotion = new PawnPromotionMove(m);
+			promotion.setPieceToPromoteTo(createPiece(getPromotionType(move), promotion));
+			return promotion;
+		}
+
+		return m;
+	}
+
+	/**
+	 * Encodes a move object
+	 * 
+	 * @param move	move
+	 * @param board	board, before the move is executed
+	 * 
+	 * @return	packed move
+	 */
+	public static int fromMove(Move move, Board board) {
+		int source = move.getSource().square;
+		int destination = move.getDestination().square;
+		Piece captured = board.getPiece(destination);
+		PieceType moving = board.getPiece(source).getType();
+		int flags = QUIET;
+
+		if (move instanceof CastlingMove)
+			flags = destination > source ? KING_CASTLE : QUEEN_CASTLE;
+		else if (move instanceof PawnPromotionMove)
+			flags = promotionFlags(((PawnPromotionMove) move).getPieceToPromoteTo().getType());
+		else if (moving == PieceType.PAWN && Math.abs(destination - source) == 2 * Board.SIZE)
+			flags = DOUBLE_PAWN_PUSH;
+
+		if (captured != null)
+			flags |= CAPTURE;
+
+		return create(source, destination, flags, moving, captured == null ? null : captured.getType());
+	}
+
+	/**
+	 * @param move	packed move
+	 * @return	move in coordinate notation, for example e2e4
+	 */
+	public static String toString(int move) {
+		String s = Position.of(getSource(move)).toString() + Position.of(getDestination(move));
+		if (isPromotion(move))
+			s += getPromotionType(move) == PieceType.KNIGHT ? "n" : getPromotionType(move).toString().substring(0, 1);
+		return s.toLowerCase();
+	}
+
+	// private methods
+
+	private static Piece createPiece(PieceType type, Move move) {
+		Position position = move.getDestination();
+		switch (type) {
+		case KNIGHT:
+			return new Knight(position, move.getMovingPiece().getAlliance());
+		case BISHOP:
+			return new Bishop(position, move.getMovingPiece().getAlliance());
+		case ROOK:
+			return new Rook(position, move.getMovingPiece().getAlliance());
+		default:
+			return new Queen(position, move.getMovingPiece().getAlliance());
+		}
+	}
+
+}
@@ -22,7 +22,7 @@ public class PawnPromotionMove extends Move{
 	@Override
 	public void execute(Board board) {
 		move.execute(board);
-		board.getTile(move.getDestination()).setPiece(pieceToPromoteTo);
+		board.setPiece(move.getDestination(), pieceToPromoteTo);
 	}
 
 	@Override
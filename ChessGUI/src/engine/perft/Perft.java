@@ -0,0 +1,280 @@
+package engine.perft;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import engine.board.Board;
+import engine.move.MoveList;
+import engine.move.PackedMove;
+
+/**
+ * Counts the leaf nodes of the move tree of a position to a fixed depth
+ * (perft). The counts are compared with known values to validate the move
+ * generator and timed to measure it.
+ * 
+ * The last ply is counted in bulk from the size of the move list, without
+ * making the moves. An optional hash table stores the counts of subtrees, so
+ * transpositions are counted once. Root moves can be split across threads,
+ * each working on its own copy of the board.
+ *
+ */
+public class Perft {
+
+	private static final int MAX_DEPTH = 64;
+	private static final int ENTRY_BYTES = 16;
+	private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+
+	// hash table, the key word is stored xor the count so a torn write is a miss
+	private final long[] hashKeys;
+	private final long[] hashCounts;
+	private final int hashMask;
+
+	/**
+	 * Constructor, without a hash table
+	 */
+	public Perft() {
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param hashSizeMb	size of the hash table in megabytes, 0 for none
+	 */
+	public Perft(int hashSizeMb) {
+		if (hashSizeMb > 0) {
+			int entries = Integer.highestOneBit((int) Math.min(1 << 30, hashSizeMb * (1L << 20) / ENTRY_BYTES));
+			hashKeys = new long[entries];
+			hashCounts = new long[entries];
+			hashMask = entries - 1;
+		} else {
+			hashKeys = null;
+			hashCounts = null;
+			hashMask = 0;
+		}
+	}
+
+	/**
+	 * Counts the leaf nodes for the side to move of the board
+	 * 
+	 * @param board	board, is restored when the count is done
+	 * @param depth	depth in plies
+	 * 
+	 * @return	number of leaf nodes
+	 */
+	public long perft(Board board, int depth) {
+		return count(board, depth, createMoveLists());
+	}
+
+	/**
+	 * Counts the leaf nodes below each root move
+	 * 
+	 * @param board	board, is restored when the count is done
+	 * @param depth	depth in plies, at least 1
+	 * 
+	 * @return	the count of each root move in coordinate notation, in
+	 *         generation order
+	 */
+	public Map<String, Long> divide(Board board, int depth) {
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		MoveList[] moveLists = createMoveLists();
+		MoveList moves = new MoveList();
+		board.getAllPossibleMoves(board.getSideToMove(), moves);
+
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			board.makeMove(move);
+			counts.put(PackedMove.toString(move), count(board, depth - 1, moveLists));
+			board.unmakeMove(move);
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Counts the leaf nodes with the root moves split across threads
+	 * 
+	 * @param board	board, is not changed
+	 * @param depth	depth in plies
+	 * @param threads	number of threads
+	 * 
+	 * @return	number of leaf nodes
+	 */
+	public long perftParallel(Board board, int depth, int threads) {
+		if (depth <= 1 || threads <= 1)
+			return perft(board, depth);
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.invoke(new RootTask(board.copy(), depth));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Clears the hash table
+	 */
+	public void clear() {
+		if (hashKeys != null) {
+			Arrays.fill(hashKeys, 0);
+			Arrays.fill(hashCounts, 0);
+		}
+	}
+
+	// private methods
+
+	private long count(Board board, int depth, MoveList[] moveLists) {
+		if (depth == 0)
+			return 1;
+
+		MoveList moves = moveLists[depth];
+		board.getAllPossibleMoves(board.getSideToMove(), moves);
+		if (depth == 1)
+			return moves.size();
+
+		long key = board.getZobristKey() ^ depth * DEPTH_MIX;
+		int index = (int) key & hashMask;
+		if (hashKeys != null && (hashKeys[index] ^ hashCounts[index]) == key)
+			return hashCounts[index];
+
+		long nodes = 0;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			board.makeMove(move);
+			nodes += count(board, depth - 1, moveLists);
+			board.unmakeMove(move);
+		}
+
+		if (hashKeys != null) {
+			hashKeys[index] = key ^ nodes;
+			hashCounts[index] = nodes;
+		}
+		return nodes;
+	}
+
+	private static MoveList[] createMoveLists() {
+		MoveList[] moveLists = new MoveList[MAX_DEPTH + 1];
+		for (int i = 0; i < moveLists.length; i++)
+			moveLists[i] = new MoveList();
+		return moveLists;
+	}
+
+	/**
+	 * Forks one task per root move
+	 */
+	private class RootTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Board board;
+		private final int depth;
+
+		RootTask(Board board, int depth) {
+			this.board = board;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			MoveList moves = new MoveList();
+			board.getAllPossibleMoves(board.getSideToMove(), moves);
+
+			MoveTask[] tasks = new MoveTask[moves.size()];
+			for (int i = 0; i < tasks.length; i++) {
+				tasks[i] = new MoveTask(board, moves.get(i), depth - 1);
+				tasks[i].fork();
+			}
+
+			long nodes = 0;
+			for (MoveTask task : tasks)
+				nodes += task.join();
+			return nodes;
+		}
+	}
+
+	/**
+	 * Counts the subtree of one root move on a copy of the board
+	 */
+	private class MoveTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Board board;
+		private final int depth;
+
+		MoveTask(Board root, int move, int depth) {
+			board = root.copy();
+			board.makeMove(move);
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			return count(board, depth, createMoveLists());
+		}
+	}
+
+	/**
+	 * Runs perft on a position.
+	 * 
+	 * Usage: Perft &lt;fen | startpos&gt; &lt;depth&gt; [divide] [threads=N]
+	 * [hash=MB]
+	 * 
+	 * @param args	arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Usage: Perft <fen | startpos> <depth> [divide] [threads=N] [hash=MB]");
+			return;
+		}
+
+		Board board = args[0].equals("startpos") ? new Board() : new Board(args[0]);
+		int depth = Integer.parseInt(args[1]);
+		boolean divide = false;
+		int threads = 1;
+		int hash = 0;
+
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].equals("divide"))
+				divide = true;
+			else if (args[i].startsWith("threads="))
+				threads = Integer.parseInt(args[i].substring(8));
+			else if (args[i].startsWith("hash="))
+				hash = Integer.parseInt(args[i].substring(5));
+		}
+
+		Perft perft = new Perft(hash);
+		long start = System.nanoTime();
+		long nodes;
+
+		if (divide) {
+			nodes = 0;
+			for (Map.Entry<String, Long> entry : perft.divide(board, depth).entrySet()) {
+				System.out.println(entry.getKey() + ": " + entry.getValue());
+				nodes += entry.getValue();
+			}
+			System.out.println();
+		} else
+			nodes = perft.perftParallel(board, depth, threads);
+
+		long nanos = System.nanoTime() - start;
+		System.out.println("Nodes: " + nodes);
+		System.out.println("Time: " + nanos / 1000000 + " ms");
+		System.out.println("NPS: " + nodesPerSecond(nodes, nanos));
+	}
+
+	/**
+	 * @param nodes	nodes
+	 * @param nanos	elapsed time in nanoseconds
+	 * 
+	 * @return	nodes per second
+	 */
+	static long nodesPerSecond(long nodes, long nanos) {
+		return nanos == 0 ? 0 : nodes * 1000000000L / nanos;
+	}
+
+}
@@ -0,0 +1,82 @@
+package engine.perft;
+
+import engine.board.Board;
+
+/**
+ * Runs perft on a suite of standard test positions and compares the counts
+ * with the known values.
+ * 
+ * The counts are those of this engine's rules: there is no en passant and
+ * pawns promote to a queen only. They match the published counts wherever
+ * neither rule comes into play, for example the standard start position to
+ * depth 4.
+ *
+ */
+public class PerftSuite {
+
+	private static final String[] FENS = {
+			Board.START_FEN,
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+			"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+			"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10" };
+
+	private static final String[] NAMES = { "Game start", "Standard start", "Kiwipete", "Position 3", "Position 4",
+			"Position 5", "Position 6" };
+
+	private static final int[] DEPTHS = { 4, 4, 4, 5, 4, 4, 4 };
+
+	private static final long[] NODES = { 202002, 197281, 4068217, 671300, 320639, 1806790, 3894594 };
+
+	/**
+	 * Runs the suite.
+	 * 
+	 * Usage: PerftSuite [threads=N] [hash=MB]
+	 * 
+	 * @param args	arguments
+	 */
+	public static void main(String[] args) {
+		int threads = 1;
+		int hash = 0;
+
+		for (String arg : args) {
+			if (arg.startsWith("threads="))
+				threads = Integer.parseInt(arg.substring(8));
+			else if (arg.startsWith("hash="))
+				hash = Integer.parseInt(arg.substring(5));
+		}
+
+		long totalNodes = 0;
+		long totalNanos = 0;
+		int failed = 0;
+
+		for (int i = 0; i < FENS.length; i++) {
+			Perft perft = new Perft(hash);
+			Board board = new Board(FENS[i]);
+
+			long start = System.nanoTime();
+			long nodes = perft.perftParallel(board, DEPTHS[i], threads);
+			long nanos = System.nanoTime() - start;
+
+			boolean ok = nodes == NODES[i];
+			if (!ok)
+				failed++;
+			totalNodes += nodes;
+			totalNanos += nanos;
+
+			System.out.println(String.format("%-15s depth %d  %10d nodes  %6d ms  %10d nps  %s", NAMES[i], DEPTHS[i],
+					nodes, nanos / 1000000, Perft.nodesPerSecond(nodes, nanos),
+					ok ? "OK" : "FAILED, expected " + NODES[i]));
+		}
+
+		System.out.println(String.format("Total %d nodes in %d ms, %d nps", totalNodes, totalNanos / 1000000,
+				Perft.nodesPerSecond(totalNodes, totalNanos)));
+		System.out.println(failed == 0 ? "All positions passed" : failed + " position(s) failed");
+
+		if (failed > 0)
+			System.exit(1);
+	}
+
+}
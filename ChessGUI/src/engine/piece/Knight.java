@@ -1,11 +1,6 @@
 package engine.piece;
 
-import java.util.ArrayList;
-
-import engine.board.Board;
 import engine.board.Position;
-import engine.move.AttackMove;
-import engine.move.Move;
 
 
 /**
@@ -20,28 +15,8 @@ public class Knight extends Piece {
 	}
 
 	@Override
-	public ArrayList<Move> getPossibleMoves(Board board) {
-		ArrayList<Move> moves = new ArrayList<Move>();
-
-		Position offsets[] = { new Position(2, -1), new Position(1, -2), new Position(2, 1), new Position(1, 2),
-				new Position(-2, -1), new Position(-1, -2), new Position(-2, 1), new Position(-1, 2) };
-
-		for (Position offset : offsets) {
-			Position current = new Position(position.row, position.col);
-			current.add(offset);
-
-			if (board.isValidTile(current)
-					&& (board.isEmpty(current) || board.getPiece(current).getAlliance() != alliance)) {
-				// attack move
-				if (!board.isEmpty(current) && board.getPiece(current).getAlliance() != alliance)
-					moves.add(new AttackMove(position, new Position(current), this));
-				else// normal move
-					moves.add(new Move(position, new Position(current), this));
-			}
-		}
-
-		removeCheckMoves(moves, board);
-		return moves;
+	public PieceType getType() {
+		return PieceType.KNIGHT;
 	}
 
 	@Override
@@ -1,12 +1,6 @@
 package engine.piece;
 
-import java.util.ArrayList;
-
-import engine.board.Board;
 import engine.board.Position;
-import engine.move.AttackMove;
-import engine.move.Move;
-import engine.move.PawnPromotionMove;
 
 /**
  * Defines the Pawn piece in chess
@@ -14,47 +8,50 @@ import engine.move.PawnPromotionMove;
  */
 public class Pawn extends Piece {
 
+	// pieces this pawn promotes to on the board, created on first use
+	private final Piece[] promotionPieces = new Piece[PieceType.COUNT];
+
 	public Pawn(Position position, Alliance alliance) {
 		super(position, alliance);
 	}
 
-	@Override
-	public ArrayList<Move> getPossibleMoves(Board board) {
-		ArrayList<Move> moves = new ArrayList<Move>();
-		int direction = alliance == Alliance.BLACK ? 1 : -1;// 1 for down direction, -1 for up direction
-
-		// one row move
-		Position p1 = new Position(position.row + direction, position.col);
-		if (board.isValidTile(p1) && board.isEmpty(p1)) {
-			moves.add(new Move(position, p1, this));
-
-		}
-
-		// two row move
-		if (!hasMoved) {
-			Position p2 = new Position(position.row + direction * 2, position.col);
-			if (board.isEmpty(p1) && board.isEmpty(p2))
-				moves.add(new Move(position, p2, this));
+	/**
+	 * Gets the piece that replaces this pawn on promotion. The same piece is
+	 * returned every time, so made moves can be searched without creating
+	 * pieces.
+	 * 
+	 * @param type	knight, bishop, rook or queen
+	 * 
+	 * @return	piece of the pawn's alliance
+	 */
+	public Piece getPromotionPiece(PieceType type) {
+		Piece piece = promotionPieces[type.ordinal()];
+		if (piece != null)
+			return piece;
+
+		switch (type) {
+		case KNIGHT:
+			piece = new Knight(position, alliance);
+			break;
+		case BISHOP:
+			piece = new Bishop(position, alliance);
+			break;
+		case ROOK:
+			piece = new Rook(position, alliance);
+			break;
+		default:
+			piece = new Queen(position, alliance);
+			break;
 		}
+		piece.moved();
 
-		// attack moves
-		Position a1 = new Position(position.row + direction, position.col + 1);
-		Position a2 = new Position(position.row + direction, position.col - 1);
-
-		if (board.isValidTile(a1) && !board.isEmpty(a1) && board.getPiece(a1).getAlliance() != alliance)
-			moves.add(new AttackMove(position, a1, this));
-
-		if (board.isValidTile(a2) && !board.isEmpty(a2) && board.getPiece(a2).getAlliance() != alliance)
-			moves.add(new AttackMove(position, a2, this));
-
-		//check if any of the moves lead to pawn promotion
-		for (int i = moves.size() - 1; i >= 0; i--)
-			if (board.isHomeRankTile(moves.get(i).getDestination(), alliance.getOpposing())) {
-				moves.set(i, new PawnPromotionMove(moves.get(i)));
-			}
+		promotionPieces[type.ordinal()] = piece;
+		return piece;
+	}
 
-		removeCheckMoves(moves, board);
-		return moves;
+	@Override
+	public PieceType getType() {
+		return PieceType.PAWN;
 	}
 
 	@Override
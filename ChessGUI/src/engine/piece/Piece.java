@@ -3,8 +3,10 @@ package engine.piece;
 import java.util.ArrayList;
 
 import engine.board.Board;
+import engine.board.MoveGenerator;
 import engine.board.Position;
 import engine.move.Move;
+import engine.move.MoveList;
 
 /**
  * Defines an abstract piece
@@ -31,20 +33,18 @@ public abstract class Piece {
 	 * @param board	board
 	 * @return	all the possible moves available on board
 	 */
-	public abstract ArrayList<Move> getPossibleMoves(Board board);
+	public ArrayList<Move> getPossibleMoves(Board board) {
+		MoveList moves = new MoveList();
+		MoveGenerator.generatePieceMoves(board, getSquare(), moves);
+
+		return board.toMoves(moves);
+	}
 
 	/**
-	 * Removes all the moves that puts the king in check
-	 * 
-	 * @param moves	moves
-	 * @param board	board
+	 * @return type of the piece
 	 */
-	protected void removeCheckMoves(ArrayList<Move> moves, Board board) {
-		for (int i = moves.size() - 1; i >= 0; i--)
-			if (board.isCheckMoveFor(alliance, moves.get(i)))
-				moves.remove(i);
-	}
-	
+	public abstract PieceType getType();
+
 	/**
 	 * is called when piece moves
 	 */
@@ -66,6 +66,10 @@ public abstract class Piece {
 		return position;
 	}
 
+	public int getSquare() {
+		return position.square;
+	}
+
 	public void setPosition(Position position) {
 		this.position = position;
 	}
@@ -0,0 +1,26 @@
+package engine.piece;
+
+/**
+ * Piece type. The ordinal is used as the bitboard index of the type.
+ *
+ */
+public enum PieceType {
+
+	PAWN(100), KNIGHT(300), BISHOP(400), ROOK(200), QUEEN(500), KING(1000);
+
+	public static final int COUNT = values().length;
+
+	private final int value;
+
+	private PieceType(int value) {
+		this.value = value;
+	}
+
+	/**
+	 * @return	material value of the piece used by the evaluation
+	 */
+	public int getValue() {
+		return value;
+	}
+
+}
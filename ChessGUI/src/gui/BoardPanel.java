@@ -105,8 +105,12 @@ public class BoardPanel extends JPanel implements ActionListener {
 
 			@Override
 			public void mousePressed(MouseEvent e) {
-				actionListener.actionPerformed(
-						new ActionEvent(new Position(e.getY() / Cell.CELL_SIZE, e.getX() / Cell.CELL_SIZE), 0, ""));
+				int row = e.getY() / Cell.CELL_SIZE;
+				int col = e.getX() / Cell.CELL_SIZE;
+				if (row < 0 || row >= Board.SIZE || col < 0 || col >= Board.SIZE)
+					return;
+
+				actionListener.actionPerformed(new ActionEvent(Position.of(row, col), 0, ""));
 			}
 
 			@Override
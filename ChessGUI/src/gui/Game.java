@@ -3,6 +3,10 @@ package gui;
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Stack;
 
@@ -10,12 +14,15 @@ import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import engine.Chess;
 import engine.ChessIO;
 import engine.GameObserver;
+import engine.ai.SearchLimits;
 import engine.board.Board;
 import engine.board.Position;
+import engine.book.OpeningBook;
 import engine.move.Move;
 import engine.piece.Piece;
 import java.awt.CardLayout;
@@ -30,6 +37,12 @@ public class Game implements GameObserver {
 	public static final int FRAME_WIDTH = Cell.CELL_SIZE * 11;
 	public static final int FRAME_HEIGHT = Cell.CELL_SIZE * 8;
 
+	// time the AI may think about a hint
+	private static final SearchLimits HINT_SEARCH_LIMITS = SearchLimits.time(1000, 2000);
+	// opening book in the working directory, the game plays without it if
+	// the file is missing
+	private static final String OPENING_BOOK_PATH = "book.bin";
+
 	private final JPanel container;
 	private final CardLayout cardLayout;
 
@@ -37,12 +50,14 @@ public class Game implements GameObserver {
 	private final MoveLogPanel moveLogPanel;
 	private final JFrame frame;
 	private Chess chess;
+	private final OpeningBook openingBook;
 
 	private boolean undoMade;
 	private boolean redoMade;
 
 	public Game() {
 		Assets.load();
+		openingBook = loadOpeningBook();
 
 		// board panel
 		boardPanel = new BoardPanel();
@@ -50,7 +65,7 @@ public class Game implements GameObserver {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				if (boardPanel.isAnimating())
+				if (boardPanel.isAnimating() || chess.isAIThinking())
 					return;
 
 				chess.makeMove((Position) e.getSource());
@@ -84,10 +99,9 @@ public class Game implements GameObserver {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				if (boardPanel.isAnimating())
-					return;
-
 				String cmd = e.getActionCommand();
+				if (boardPanel.isAnimating() || (chess.isAIThinking() && !cmd.equals("exit")))
+					return;
 
 				switch (cmd) {
 				case "undo":
@@ -174,7 +188,7 @@ public class Game implements GameObserver {
 	private void updateBoard(Board board) {
 		for (int i = 0; i < Board.SIZE; i++)
 			for (int j = 0; j < Board.SIZE; j++) {
-				Position p = new Position(i, j);
+				Position p = Position.of(i, j);
 
 				if (!board.isEmpty(p)) {
 					Piece piece = board.getPiece(p);
@@ -260,12 +274,26 @@ public class Game implements GameObserver {
 
 	}
 
+	/**
+	 * Runs the task on the event dispatch thread
+	 */
+	@Override
+	public void notifyAIMoveFailed() {
+		JOptionPane.showMessageDialog(boardPanel, "The AI could not find a move");
+	}
+
+	@Override
+	public void runOnGameThread(Runnable task) {
+		SwingUtilities.invokeLater(task);
+	}
+
 	// private methods
 
 	/**
 	 * Exits the game panel
 	 */
 	private void exit() {
+		chess.cancelAIMove();
 		cardLayout.show(container, "menu");
 	}
 
@@ -285,11 +313,16 @@ public class Game implements GameObserver {
 	}
 
 	/**
-	 * Gives hint using the ai
+	 * Gives hint using the ai, the hint is shown once the search is done
 	 */
 	private void hint() {
-		Move hintMove = chess.getMinmax().getBestMove(chess.getBoard(), chess.getCurrentPlayer(), 5);
+		chess.findHint(HINT_SEARCH_LIMITS, this::showHint);
+	}
 
+	/**
+	 * Highlights the hint move
+	 */
+	private void showHint(Move hintMove) {
 		chess.deselectPiece();
 		chess.selectPiece(hintMove.getMovingPiece());
 
@@ -299,6 +332,24 @@ public class Game implements GameObserver {
 		boardPanel.repaint();
 	}
 
+	/**
+	 * Opens the opening book
+	 * 
+	 * @return	the book, null if there is none
+	 */
+	private static OpeningBook loadOpeningBook() {
+		Path path = Paths.get(OPENING_BOOK_PATH);
+		if (!Files.isRegularFile(path))
+			return null;
+
+		try {
+			return OpeningBook.open(path);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
 	/**
 	 * Loads the game from save file
 	 */
@@ -308,7 +359,10 @@ public class Game implements GameObserver {
 		fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
 
 		if (fileChooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+			if (chess != null)
+				chess.dispose();
 			chess = ChessIO.loadChess(fileChooser.getSelectedFile().getPath(), this);
+			chess.setOpeningBook(openingBook);
 			updateBoard(chess.getBoard());
 
 			cardLayout.show(container, "game");
@@ -319,7 +373,10 @@ public class Game implements GameObserver {
 	 * Creates a new standard game
 	 */
 	private void newGame() {
+		if (chess != null)
+			chess.dispose();
 		chess = new Chess(this);
+		chess.setOpeningBook(openingBook);
 		updateBoard(chess.getBoard());
 
 		cardLayout.show(container, "game");